@@ -0,0 +1,141 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.dto.BulkImportResultDTO;
+import com.example.ecotrade.service.OwnerStatsService;
+import com.example.ecotrade.service.ProductBulkImporter;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filas por segundo del alta masiva frente al alta de productos de una en una.
+ * singleItem reproduce lo que hace POST /api/products/user/{userId} por cada producto: transacción propia,
+ * lectura del dueño e INSERT con clave IDENTITY devuelta. bulkImport usa ProductBulkImporter con batches JDBC.
+ * Con PostgreSQL la diferencia crece con la latencia de red (un viaje por fila frente a uno por batch).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkImportBenchmark {
+
+    private static final int ROWS = 2_000;
+
+    @Param({"100", "500", "1000"})
+    private int chunkSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ProductBulkImporter importer;
+    private UUID ownerId;
+    private List<Map<String, Object>> rows;
+
+    @Setup
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulk-import;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS product");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (id UUID PRIMARY KEY, email VARCHAR(255) NOT NULL UNIQUE, " +
+                "display_name VARCHAR(255), supabase_id VARCHAR(255), created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE product (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "name VARCHAR(255), price DOUBLE PRECISION, owner_id UUID REFERENCES users(id), created_at TIMESTAMP, " +
+                "description TEXT, use_time VARCHAR(255))");
+
+        ownerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "bulk@ecotrade.test", "Bulk Seller", Timestamp.valueOf(LocalDateTime.now()));
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Sin JPA no hay tabla de estadísticas: se omite su UPDATE (uno por bloque en la aplicación)
+        OwnerStatsService noStats = new OwnerStatsService(null) {
+            @Override
+            public void listingsAdded(UUID ownerId, long count, double priceSum, double minPrice, double maxPrice,
+                                      LocalDateTime newest) {
+            }
+        };
+        importer = new ProductBulkImporter(jdbcTemplate, transactionManager, noStats, event -> { },
+                JsonMapper.builder().build(), chunkSize, ROWS);
+
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", "Producto " + i);
+            row.put("price", 5.0 + (i % 500));
+            row.put("description", "Silla de escritorio en buen estado " + i);
+            row.put("useTime", "1 año");
+            rows.add(row);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearProducts() {
+        jdbcTemplate.execute("TRUNCATE TABLE product");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long singleItem() {
+        long lastId = 0;
+        for (Map<String, Object> row : rows) {
+            lastId = transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, ownerId);
+                KeyHolder keys = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("INSERT INTO product " +
+                            "(name, price, owner_id, created_at, description, use_time) VALUES (?, ?, ?, ?, ?, ?)",
+                            Statement.RETURN_GENERATED_KEYS);
+                    ps.setString(1, (String) row.get("name"));
+                    ps.setDouble(2, (Double) row.get("price"));
+                    ps.setObject(3, ownerId);
+                    ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                    ps.setString(5, (String) row.get("description"));
+                    ps.setString(6, (String) row.get("useTime"));
+                    return ps;
+                }, keys);
+                return keys.getKey().longValue();
+            });
+        }
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BulkImportResultDTO bulkImport() {
+        return importer.importRows(ownerId, rows);
+    }
+}
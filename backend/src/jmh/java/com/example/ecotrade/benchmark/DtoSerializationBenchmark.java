@@ -0,0 +1,106 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.dto.ProductPageDTO;
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.dto.UserResponseDTO;
+import com.example.ecotrade.model.Product;
+import com.example.ecotrade.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo entidad -> DTO y serialización JSON de las respuestas de productos y usuarios.
+ * size recorre desde un detalle hasta una lista de dueño grande; page es la respuesta
+ * paginada de GET /api/products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+    @Param({"1", "20", "100", "1000"})
+    private int size;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private List<Product> products;
+    private List<ProductResponseDTO> productDtos;
+    private List<User> users;
+    private List<UserResponseDTO> userDtos;
+    private ProductPageDTO page;
+
+    @Setup
+    public void setUp() {
+        User owner = user(0);
+        products = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product("Producto " + i, 10.0 + i,
+                    "Bicicleta de paseo en buen estado, revisada hace un mes. Unidad " + i, "2 años", owner.getId());
+            product.setId((long) i);
+            product.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+            product.setUser(owner);
+            products.add(product);
+            users.add(user(i));
+        }
+        productDtos = products.stream().map(ProductResponseDTO::new).toList();
+        userDtos = users.stream().map(UserResponseDTO::new).toList();
+        page = new ProductPageDTO(productDtos, "TkVXRVNUfDE3MDAwMDAwMDAwMDB8NDI", true);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> mapProducts() {
+        return products.stream().map(ProductResponseDTO::new).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() {
+        return jsonMapper.writeValueAsBytes(productDtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeProducts() {
+        return jsonMapper.writeValueAsBytes(products.stream().map(ProductResponseDTO::new).toList());
+    }
+
+    @Benchmark
+    public byte[] serializeProductPage() {
+        return jsonMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> mapUsers() {
+        return users.stream().map(UserResponseDTO::new).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() {
+        return jsonMapper.writeValueAsBytes(userDtos);
+    }
+
+    private static User user(int i) {
+        User user = new User("seller" + i + "@ecotrade.test", "Seller " + i, null, "supabase-" + i);
+        user.setId(UUID.randomUUID());
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.security.JwtAuthenticationFilter;
+import com.example.ecotrade.security.JwtTokenValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorrido completo de JwtAuthenticationFilter por petición: cabecera, verificación del token,
+ * construcción de la autenticación y atributos del request.
+ * authenticatedWrite es una petición con token (POST de producto); publicRead es un GET público
+ * del catálogo, que el filtro salta sin mirar el token. cacheSize 0 desactiva la caché de claims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"0", "10000"})
+    private long cacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+    private String ownerId;
+
+    @Setup
+    public void setUp() {
+        JwtTokenValidator validator = new JwtTokenValidator(JwtVerificationBenchmark.SECRET, cacheSize,
+                new SimpleMeterRegistry());
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenValidator", validator);
+        ownerId = UUID.randomUUID().toString();
+        authorization = "Bearer " + JwtVerificationBenchmark.signedToken(
+                JwtVerificationBenchmark.SECRET, ownerId, "seller@ecotrade.test");
+    }
+
+    @Benchmark
+    public Object authenticatedWrite() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/products/user/" + ownerId);
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+            return request.getAttribute("userId");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Object publicRead() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/42");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        return request.getAttribute("userId");
+    }
+}
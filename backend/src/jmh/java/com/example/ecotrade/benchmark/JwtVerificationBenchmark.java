@@ -0,0 +1,89 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.security.JwtTokenValidator;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de verificar el JWT de una petición autenticada.
+ * legacyPerRequest reproduce el comportamiento anterior: isTokenValid, extractEmail y
+ * extractUserId reconstruían la clave y el parser y verificaban la firma en cada llamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+    private String token;
+    private JwtTokenValidator uncachedValidator;
+    private JwtTokenValidator cachedValidator;
+
+    @Setup
+    public void setUp() {
+        token = signedToken(SECRET, UUID.randomUUID().toString(), "seller@ecotrade.test");
+        uncachedValidator = new JwtTokenValidator(SECRET, 0, new SimpleMeterRegistry());
+        cachedValidator = new JwtTokenValidator(SECRET, 10_000, new SimpleMeterRegistry());
+        cachedValidator.verify(token);
+    }
+
+    @Benchmark
+    public void legacyPerRequest(Blackhole bh) {
+        bh.consume(legacyParse(token).getExpiration());
+        bh.consume(legacyParse(token).get("email", String.class));
+        bh.consume(legacyParse(token).getSubject());
+    }
+
+    @Benchmark
+    public Claims singleVerify() {
+        return uncachedValidator.verify(token).orElseThrow();
+    }
+
+    @Benchmark
+    public Claims cachedVerify() {
+        return cachedValidator.verify(token).orElseThrow();
+    }
+
+    private static Claims legacyParse(String token) {
+        SecretKey key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    static String signedToken(String secret, String subject, String email) {
+        SecretKey key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        return Jwts.builder()
+                .subject(subject)
+                .claim("email", email)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(key)
+                .compact();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.security.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contención del limitador con muchos hilos: todos sobre la misma clave (un scraper, peor caso para el CAS)
+ * y repartidos entre muchas claves (tráfico normal). Se compara con un token bucket clásico con
+ * synchronized y relleno explícito. Los hilos se fijan con @Threads; para otros valores, -t en jmh.args.
+ * La capacidad es enorme para medir el coste de la decisión y no el de los rechazos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    private int keys;
+
+    private TokenBucketLimiter limiter;
+    private SynchronizedLimiter synchronizedLimiter;
+    private String[] keyNames;
+
+    @Setup
+    public void setUp() {
+        // Mil millones de fichas por segundo: ninguna de las dos implementaciones llega a rechazar
+        limiter = new TokenBucketLimiter(1_000_000_000L, Duration.ofNanos(1), 100_000);
+        synchronizedLimiter = new SynchronizedLimiter(1e9, 1e9);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public boolean lockFree() {
+        return limiter.tryAcquire(key()).allowed();
+    }
+
+    @Benchmark
+    public boolean synchronizedBucket() {
+        return synchronizedLimiter.tryAcquire(key());
+    }
+
+    private String key() {
+        return keys == 1 ? keyNames[0] : keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    // Referencia: cubo con fichas en double, relleno por tiempo transcurrido y un lock por mapa y por cubo
+    static final class SynchronizedLimiter {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private final Map<String, Bucket> buckets = new HashMap<>();
+
+        SynchronizedLimiter(double capacity, double tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / 1e9;
+        }
+
+        boolean tryAcquire(String key) {
+            Bucket bucket;
+            synchronized (buckets) {
+                bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, System.nanoTime()));
+            }
+            synchronized (bucket) {
+                long now = System.nanoTime();
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+                bucket.refilledAt = now;
+                if (bucket.tokens < 1) {
+                    return false;
+                }
+                bucket.tokens -= 1;
+                return true;
+            }
+        }
+
+        private static final class Bucket {
+            double tokens;
+            long refilledAt;
+
+            Bucket(double tokens, long refilledAt) {
+                this.tokens = tokens;
+                this.refilledAt = refilledAt;
+            }
+        }
+    }
+}
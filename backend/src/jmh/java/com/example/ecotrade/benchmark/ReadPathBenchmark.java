@@ -0,0 +1,145 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.EcotradeApplication;
+import com.example.ecotrade.dto.ProductPageDTO;
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.dto.UserResponseDTO;
+import com.example.ecotrade.repository.ProductRepository;
+import com.example.ecotrade.repository.UserRepository;
+import com.example.ecotrade.service.ProductService;
+import com.example.ecotrade.service.ProductSort;
+import com.example.ecotrade.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino de lectura anterior (transacción de lectura-escritura, entidades gestionadas y mapeo a DTO)
+ * frente al actual (transacción de solo lectura y proyecciones a DTO) sobre un catálogo grande.
+ * Las cachés se desactivan para medir siempre la consulta. La asignación de memoria por operación
+ * sale del profiler gc (gc.alloc.rate.norm), activo por defecto en el perfil jmh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int OWNER_PRODUCTS = 200;
+    private static final int USERS = 500;
+
+    @Param({"100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private UserRepository userRepository;
+    private ProductService productService;
+    private UserService userService;
+    private TransactionTemplate readWrite;
+    private UUID ownerId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcotradeApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN",
+                        "ecotrade.cache.products.max-size=0", "ecotrade.cache.owner-products.max-size=0")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        productService = context.getBean(ProductService.class);
+        userService = context.getBean(UserService.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> owners = new ArrayList<>();
+        List<Object[]> userRows = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            owners.add(id);
+            userRows.add(new Object[]{id, "seller" + i + "@ecotrade.test", "Seller " + i, Timestamp.valueOf(now)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)", userRows);
+
+        List<Object[]> productRows = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            // Los primeros OWNER_PRODUCTS productos son del primer dueño; el resto se reparte
+            UUID owner = i < OWNER_PRODUCTS ? owners.get(0) : owners.get(1 + i % (USERS - 1));
+            productRows.add(new Object[]{"Producto " + i, 5.0 + (i % 997), owner,
+                    Timestamp.valueOf(now.minusSeconds(i)), "Bicicleta plegable, poco uso " + i, "1 año"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", productRows);
+        ownerId = owners.get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> catalogPageEntities() {
+        // Lo que hacía getAllProducts: entidades gestionadas y Product.user perezoso al mapear
+        return readWrite.execute(status -> productRepository
+                .findAll(PageRequest.of(0, 21, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))))
+                .map(ProductResponseDTO::new)
+                .getContent());
+    }
+
+    @Benchmark
+    public ProductPageDTO catalogPageProjection() {
+        return productService.getProductPage(ProductSort.NEWEST, null, 20);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> ownerListEntities() {
+        return readWrite.execute(status -> productRepository.findByOwnerId(ownerId).stream()
+                .map(ProductResponseDTO::new)
+                .toList());
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> ownerListProjection() {
+        return productService.getProductsByUserId(ownerId);
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> usersEntities() {
+        return readWrite.execute(status -> userRepository.findAll().stream()
+                .map(UserResponseDTO::new)
+                .toList());
+    }
+
+    @Benchmark
+    public List<UserResponseDTO> usersProjection() {
+        return userService.getAllUsers();
+    }
+}
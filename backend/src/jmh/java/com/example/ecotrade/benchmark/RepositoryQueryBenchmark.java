@@ -0,0 +1,124 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.EcotradeApplication;
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.model.Product;
+import com.example.ecotrade.model.User;
+import com.example.ecotrade.repository.ProductRepository;
+import com.example.ecotrade.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas de listado de los repositorios contra H2 en memoria (perfil test), sin cachés delante.
+ * products es el tamaño total del catálogo; cada dueño tiene OWNER_PRODUCTS productos.
+ * ownerEntities carga entidades (findByOwnerId) y sirve de referencia frente a la proyección ownerDtos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+    private static final int OWNER_PRODUCTS = 50;
+    private static final Limit PAGE = Limit.of(21);
+
+    @Param({"1000", "100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private UserRepository userRepository;
+    private UUID ownerId;
+    private ProductResponseDTO middle;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcotradeApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        productRepository = context.getBean(ProductRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> owners = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        UUID currentOwner = null;
+        for (int i = 0; i < products; i++) {
+            if (i % OWNER_PRODUCTS == 0) {
+                currentOwner = UUID.randomUUID();
+                owners.add(new Object[]{currentOwner, "seller" + i + "@ecotrade.test", "Seller " + i,
+                        Timestamp.valueOf(now)});
+            }
+            rows.add(new Object[]{"Producto " + i, 5.0 + (i % 997), currentOwner,
+                    Timestamp.valueOf(now.minusSeconds(i)), "Estantería de pino, desmontada " + i, "3 años"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)", owners);
+        jdbcTemplate.batchUpdate("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        ownerId = currentOwner;
+
+        List<ProductResponseDTO> firstHalf = productRepository.findNewest(Limit.of(products / 2));
+        middle = firstHalf.get(firstHalf.size() - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> newestFirstPage() {
+        return productRepository.findNewest(PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> newestDeepPage() {
+        return productRepository.findNewestAfter(middle.getCreatedAt(), middle.getId(), PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> cheapestDeepPage() {
+        return productRepository.findByPriceAscAfter(middle.getPrice(), middle.getId(), PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> ownerDtos() {
+        return productRepository.findDtosByOwnerId(ownerId);
+    }
+
+    @Benchmark
+    public List<Product> ownerEntities() {
+        return productRepository.findByOwnerId(ownerId);
+    }
+
+    @Benchmark
+    public List<User> allUsers() {
+        return userRepository.findAll();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.search.ProductSimilarityIndex;
+import com.example.ecotrade.search.TextNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top 10 de productos parecidos con el índice MinHash/LSH frente a calcular el Jaccard exacto contra todo
+ * el catálogo. Descripciones sintéticas: familias de anuncios casi iguales (el mismo artículo publicado
+ * varias veces) sobre un vocabulario con palabras muy frecuentes, el peor caso para las cubetas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarityIndexBenchmark {
+
+    private static final int LIMIT = 10;
+    private static final int VOCABULARY = 5000;
+    private static final int FAMILY_SIZE = 10;
+
+    @Param({"300000"})
+    private int products;
+
+    private ProductSimilarityIndex index;
+    private List<Set<String>> tokenSets;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = "palabra" + Integer.toString(i, 36);
+        }
+        String[] families = new String[products / FAMILY_SIZE];
+        for (int f = 0; f < families.length; f++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 12; w++) {
+                description.append(vocabulary[frequentWord(random)]).append(' ');
+            }
+            families[f] = description.toString();
+        }
+
+        index = new ProductSimilarityIndex(null);
+        tokenSets = new ArrayList<>(products);
+        UUID owner = UUID.randomUUID();
+        for (long id = 1; id <= products; id++) {
+            String name = "Artículo " + vocabulary[random.nextInt(200)];
+            String description = families[random.nextInt(families.length)]
+                    + vocabulary[random.nextInt(VOCABULARY)] + " " + vocabulary[random.nextInt(VOCABULARY)];
+            index.index(new ProductResponseDTO(id, name, 10.0, owner, LocalDateTime.now(), description,
+                    "1 año", "Seller", 0L));
+            Set<String> tokens = new HashSet<>(TextNormalizer.tokenize(name));
+            tokens.addAll(TextNormalizer.tokenize(description));
+            tokenSets.add(tokens);
+        }
+    }
+
+    @Benchmark
+    public List<Long> minHashIndex() {
+        return index.similar(randomId(), LIMIT);
+    }
+
+    @Benchmark
+    public PriorityQueue<double[]> exactScan() {
+        long id = randomId();
+        Set<String> target = tokenSets.get((int) id - 1);
+        PriorityQueue<double[]> best = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        for (int i = 0; i < tokenSets.size(); i++) {
+            if (i == id - 1) {
+                continue;
+            }
+            Set<String> other = tokenSets.get(i);
+            int shared = 0;
+            for (String token : target) {
+                if (other.contains(token)) {
+                    shared++;
+                }
+            }
+            best.add(new double[]{(double) shared / (target.size() + other.size() - shared), i + 1});
+            if (best.size() > LIMIT) {
+                best.poll();
+            }
+        }
+        return best;
+    }
+
+    // Distribución sesgada: unas cientos de palabras aparecen en casi todos los anuncios
+    private static int frequentWord(SplittableRandom random) {
+        return (int) Math.min(VOCABULARY - 1, Math.abs(random.nextGaussian()) * 800);
+    }
+
+    private long randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(products);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.EcotradeApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga HTTP de la aplicación completa con hilos de plataforma frente a hilos virtuales.
+ * Se arranca el backend con el perfil test (H2) y se añade una latencia fija a cada sentencia y commit
+ * para simular los viajes de red a Supabase. El pool de Hikari se limita a 10 conexiones.
+ * El grupo mixed combina peticiones que van a la base de datos (lista de un dueño sin caché) con
+ * peticiones servidas desde caché (detalle de producto): con hilos de plataforma las segundas esperan
+ * a que Tomcat libere un hilo ocupado por las primeras; con hilos virtuales solo esperan las que usan el pool.
+ * Ejecutar con: ./mvnw -Pjmh test-compile exec:exec -Djmh.args="ThreadingModeLoadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadingModeLoadBenchmark {
+
+    private static final int PRODUCTS = 50;
+
+    @Param({"platform", "virtual"})
+    private String threading;
+
+    @Param({"5"})
+    private int dbLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest ownerProducts;
+    private HttpRequest productDetail;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(EcotradeApplication.class, NetworkLatency.class)
+                .profiles(threading.equals("virtual") ? new String[]{"test", "virtual"} : new String[]{"test"})
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.hikari.maximum-pool-size=10",
+                        "spring.datasource.hikari.connection-timeout=30000",
+                        "spring.jpa.open-in-view=false",
+                        "ecotrade.cache.owner-products.max-size=0",
+                        "ecotrade.benchmark.db-latency-millis=" + dbLatencyMillis,
+                        "logging.level.root=WARN")
+                .run();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UUID ownerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "load@ecotrade.test", "Load Seller", Timestamp.valueOf(LocalDateTime.now()));
+        for (int i = 0; i < PRODUCTS; i++) {
+            jdbcTemplate.update("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", "Producto " + i, 10.0 + i, ownerId,
+                    Timestamp.valueOf(LocalDateTime.now()), "Lámpara de escritorio " + i, "2 años");
+        }
+        Long productId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM product", Long.class);
+
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ownerProducts = HttpRequest.newBuilder(URI.create(base + "/api/products/user/" + ownerId)).build();
+        productDetail = HttpRequest.newBuilder(URI.create(base + "/api/products/" + productId)).build();
+        // Deja el detalle en caché
+        send(productDetail);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(300)
+    public int databaseBound() throws Exception {
+        return send(ownerProducts);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(100)
+    public int cacheHit() throws Exception {
+        return send(productDetail);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("Unexpected status " + status + " for " + request.uri());
+        }
+        return status;
+    }
+
+    /**
+     * Envuelve el DataSource para que cada sentencia y cada commit tarden lo que un viaje de red.
+     * @TestConfiguration: con -Pjmh esta clase está en target/test-classes y los contextos de los tests no
+     * deben recogerla al escanear com.example.ecotrade.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class NetworkLatency {
+
+        private static final Set<String> ROUND_TRIPS = Set.of(
+                "execute", "executeQuery", "executeUpdate", "executeBatch", "executeLargeUpdate", "commit", "rollback");
+
+        @Bean
+        static BeanPostProcessor networkLatencyPostProcessor(
+                @Value("${ecotrade.benchmark.db-latency-millis}") long latencyMillis) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                            ? delayed(DataSource.class, dataSource, latencyMillis)
+                            : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T delayed(Class<T> type, T target, long latencyMillis) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (ROUND_TRIPS.contains(method.getName())) {
+                    Thread.sleep(latencyMillis);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Connection connection && method.getReturnType() == Connection.class) {
+                    return delayed(Connection.class, connection, latencyMillis);
+                }
+                if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return delayed((Class<Statement>) method.getReturnType(), statement, latencyMillis);
+                }
+                return result;
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.trending.DecayingTopK;
+import com.example.ecotrade.trending.TrendingProducts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por evento del sketch de tendencias frente a contar exactamente (un HashMap con el mismo
+ * decaimiento) sobre un flujo con popularidad tipo Zipf: dos horas de visitas a un catálogo de un millón
+ * de productos. bufferedView es lo que paga la ficha de producto: solo el contador pendiente de
+ * TrendingProducts, que se vuelca en el sketch fuera de la petición. Al terminar cada configuración se imprime la precisión contra el recuento exacto: memoria
+ * de cada uno, cuántos de los 10 y 50 primeros reales encuentra el sketch y el error relativo medio de sus
+ * puntuaciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrendingSketchBenchmark {
+
+    private static final Duration WINDOW = Duration.ofHours(1);
+    private static final int CATALOG = 1_000_000;
+    private static final int EVENTS = 2_000_000;
+    private static final long STREAM_MILLIS = Duration.ofHours(2).toMillis();
+    private static final int CANDIDATES = 200;
+    private static final int DEPTH = 4;
+    // Entrada de HashMap<Long, Double>: nodo, Long y Double, más su hueco en la tabla
+    private static final int EXACT_ENTRY_BYTES = 80;
+
+    @Param({"256", "1024", "4096", "16384"})
+    private int width;
+
+    private long[] items;
+    private long[] timestamps;
+    private DecayingTopK sketch;
+    private TrendingProducts trending;
+    private Map<Long, Double> exact;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(11);
+        items = new long[EVENTS];
+        timestamps = new long[EVENTS];
+        double logCatalog = Math.log(CATALOG);
+        for (int i = 0; i < EVENTS; i++) {
+            // Rango log-uniforme: probabilidad proporcional a 1/rango (Zipf de exponente 1)
+            items[i] = (long) Math.exp(random.nextDouble() * logCatalog);
+            timestamps[i] = STREAM_MILLIS * i / EVENTS;
+        }
+        sketch = new DecayingTopK(WINDOW, width, DEPTH, CANDIDATES, 0);
+        trending = new TrendingProducts(width, DEPTH, CANDIDATES, 5, Duration.ofSeconds(1));
+        exact = new HashMap<>();
+    }
+
+    @Benchmark
+    public void sketchUpdate() {
+        int i = nextEvent();
+        sketch.add(items[i], 1, timestamps[i]);
+    }
+
+    @Benchmark
+    public void bufferedView() {
+        trending.recordView(items[nextEvent()]);
+    }
+
+    @Benchmark
+    public void exactUpdate() {
+        int i = nextEvent();
+        exact.merge(items[i], Math.exp(timestamps[i] / (double) WINDOW.toMillis()), Double::sum);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportAccuracy() {
+        DecayingTopK fresh = new DecayingTopK(WINDOW, width, DEPTH, CANDIDATES, 0);
+        Map<Long, Double> counts = new HashMap<>();
+        for (int i = 0; i < EVENTS; i++) {
+            fresh.add(items[i], 1, timestamps[i]);
+            counts.merge(items[i], Math.exp(timestamps[i] / (double) WINDOW.toMillis()), Double::sum);
+        }
+        double decay = Math.exp(-STREAM_MILLIS / (double) WINDOW.toMillis());
+        List<Map.Entry<Long, Double>> exactTop = counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(50)
+                .toList();
+        List<DecayingTopK.Entry> sketchTop = fresh.top(50, STREAM_MILLIS);
+
+        double relativeError = 0;
+        for (DecayingTopK.Entry entry : sketchTop) {
+            double real = counts.getOrDefault(entry.item(), 0.0) * decay;
+            relativeError += Math.abs(entry.score() - real) / Math.max(real, 1);
+        }
+        System.out.printf("%nwidth=%d: sketch %d KB, exacto %d KB (%d productos); top10 %d/10, top50 %d/50, "
+                        + "error relativo medio %.2f %%%n",
+                width, fresh.memoryBytes() / 1024, (long) counts.size() * EXACT_ENTRY_BYTES / 1024, counts.size(),
+                overlap(exactTop, sketchTop, 10), overlap(exactTop, sketchTop, 50),
+                100 * relativeError / sketchTop.size());
+    }
+
+    private int nextEvent() {
+        int i = next;
+        next = i + 1 == EVENTS ? 0 : i + 1;
+        return i;
+    }
+
+    private static int overlap(List<Map.Entry<Long, Double>> exactTop, List<DecayingTopK.Entry> sketchTop, int n) {
+        Set<Long> real = new HashSet<>();
+        exactTop.stream().limit(n).forEach(entry -> real.add(entry.getKey()));
+        return (int) sketchTop.stream().limit(n).filter(entry -> real.contains(entry.item())).count();
+    }
+}
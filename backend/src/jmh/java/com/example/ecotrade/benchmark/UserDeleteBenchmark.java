@@ -0,0 +1,97 @@
+package com.example.ecotrade.benchmark;
+
+import com.example.ecotrade.EcotradeApplication;
+import com.example.ecotrade.repository.UserRepository;
+import com.example.ecotrade.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Borrado de un usuario con muchos productos: cascada JPA de User.products (lo que hacía deleteUser,
+ * una carga de la colección y un DELETE por producto) frente al borrado por conjuntos de UserService.
+ * Cada iteración borra un usuario recién sembrado, así que se mide una sola operación (SingleShotTime).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UserDeleteBenchmark {
+
+    @Param({"10000"})
+    private int productsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private UserRepository userRepository;
+    private UserService userService;
+    private TransactionTemplate readWrite;
+    private UUID userId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcotradeApplication.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        userRepository = context.getBean(UserRepository.class);
+        userService = context.getBean(UserService.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void seedUser() {
+        userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                userId, "seller-" + userId + "@ecotrade.test", "Power Seller", Timestamp.valueOf(now));
+
+        List<Object[]> rows = new ArrayList<>(productsPerUser);
+        for (int i = 0; i < productsPerUser; i++) {
+            rows.add(new Object[]{"Producto " + i, 5.0 + (i % 997), userId,
+                    Timestamp.valueOf(now.minusSeconds(i)), "Descripción " + i, "1 año"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void entityCascade() {
+        readWrite.executeWithoutResult(status -> userRepository.delete(userRepository.findById(userId).orElseThrow()));
+    }
+
+    @Benchmark
+    public void setBased() {
+        userService.deleteUser(userId);
+    }
+}
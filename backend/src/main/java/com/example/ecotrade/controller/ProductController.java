@@ -1,16 +1,39 @@
 package com.example.ecotrade.controller;
 
+import com.example.ecotrade.datasource.PrimaryReads;
+import com.example.ecotrade.dto.BulkImportResultDTO;
+import com.example.ecotrade.dto.OwnerStatsDTO;
 import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.feed.ProductFeed;
 import com.example.ecotrade.model.Product;
+import com.example.ecotrade.service.CatalogVersions;
+import com.example.ecotrade.service.OwnerStatsService;
+import com.example.ecotrade.service.ProductBulkImporter;
+import com.example.ecotrade.service.ProductExportService;
 import com.example.ecotrade.service.ProductService;
+import com.example.ecotrade.service.ProductVersionConflictException;
+import com.example.ecotrade.service.RenderedProductResponses;
+import com.example.ecotrade.service.RenderedProductResponses.RenderedResponse;
+import com.example.ecotrade.service.ProductSort;
+import com.example.ecotrade.trending.TrendingWindow;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/products")
@@ -18,36 +41,143 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductBulkImporter productBulkImporter;
+    private final CatalogVersions catalogVersions;
+    private final RenderedProductResponses renderedResponses;
+    private final ProductFeed productFeed;
+    private final OwnerStatsService ownerStatsService;
+    private final CacheControl publicCacheControl;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductExportService productExportService,
+                             ProductBulkImporter productBulkImporter, CatalogVersions catalogVersions,
+                             RenderedProductResponses renderedResponses, ProductFeed productFeed,
+                             OwnerStatsService ownerStatsService,
+                             @Value("${ecotrade.http.products.max-age:PT0S}") Duration maxAge) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productBulkImporter = productBulkImporter;
+        this.catalogVersions = catalogVersions;
+        this.renderedResponses = renderedResponses;
+        this.productFeed = productFeed;
+        this.ownerStatsService = ownerStatsService;
+        // Con max-age 0 navegadores y proxies guardan la respuesta pero la revalidan siempre (304 barato)
+        this.publicCacheControl = maxAge.isZero()
+                ? CacheControl.noCache().cachePublic()
+                : CacheControl.maxAge(maxAge).cachePublic().mustRevalidate();
     }
 
     @GetMapping
-    public ResponseEntity<List<ProductResponseDTO>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        List<ProductResponseDTO> productDTOs = products.stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productDTOs);
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String matched = matchingETag(ifNoneMatch, catalogVersions.catalogETag());
+        if (matched != null) {
+            return notModified(matched);
+        }
+        try {
+            return rendered(renderedResponses.catalogPage(ProductSort.fromParam(sort), cursor, limit), acceptEncoding);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponseDTO>> searchProducts(@RequestParam("q") String query,
+                                                                   @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.searchProducts(query, limit));
+    }
+
+    // Más vistos (y recién publicados) en la última hora o el último día, según un sketch en memoria
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingProducts(@RequestParam(required = false) String window,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productService.getTrendingProducts(TrendingWindow.fromParam(window), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // Catálogo completo en NDJSON, escrito a medida que se leen las filas
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCatalog() {
+        StreamingResponseBody body = productExportService::exportCatalog;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Cambios de productos en directo (SSE), opcionalmente de un solo dueño. El navegador reconecta solo
+    // y envía Last-Event-ID; los clientes que no pueden poner cabeceras lo pasan en lastEventId
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> feed(@RequestParam(required = false) UUID ownerId,
+                                           @RequestParam(required = false) String lastEventId,
+                                           @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        SseEmitter emitter;
+        try {
+            emitter = productFeed.subscribe(ownerId, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+        } catch (IllegalStateException e) {
+            // Límite de conexiones alcanzado: el cliente vuelve a intentarlo más tarde
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        // Sin buffer en nginx: cada evento sale en cuanto se escribe
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
     }
 
     // Endpoint específico debe ir ANTES del genérico para evitar ambigüedad
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByUserId(@PathVariable UUID userId) {
-        List<Product> products = productService.getProductsByUserId(userId);
-        List<ProductResponseDTO> productDTOs = products.stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productDTOs);
+    public ResponseEntity<byte[]> getProductsByUserId(@PathVariable UUID userId,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String matched = matchingETag(ifNoneMatch, catalogVersions.ownerETag(userId));
+        if (matched != null) {
+            return notModified(matched);
+        }
+        return rendered(renderedResponses.ownerProducts(userId), acceptEncoding);
+    }
+
+    // Resumen para el perfil del vendedor: una lectura por clave de owner_listing_stats, sin cargar sus productos.
+    // Comparte el ETag con la lista del dueño: cambia con cualquier alta, modificación o baja suya.
+    // Se lee del primario: una fila atrasada de una réplica con el ETag nuevo daría 304 hasta el siguiente cambio
+    @GetMapping("/user/{userId}/stats")
+    public ResponseEntity<OwnerStatsDTO> getOwnerStats(@PathVariable UUID userId, WebRequest request) {
+        String etag = catalogVersions.ownerETag(userId);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(publicCacheControl)
+                .body(PrimaryReads.call(() -> ownerStatsService.getStats(userId)));
+    }
+
+    // "Productos parecidos" de la ficha: ids del índice MinHash en memoria y una consulta para los datos
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<ProductResponseDTO>> getSimilarProducts(@PathVariable Long id,
+                                                                       @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.getSimilarProducts(id, limit));
     }
 
+    // El ETag es la versión de la fila; sale de la caché de productos y es el que se envía en If-Match al modificar
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id, WebRequest request) {
         return productService.getProductById(id)
-                .map(ProductResponseDTO::new)
-                .map(ResponseEntity::ok)
+                .map(product -> {
+                    String etag = versionETag(product.getVersion());
+                    if (request.checkNotModified(etag)) {
+                        return this.<ProductResponseDTO>notModified(etag);
+                    }
+                    return ResponseEntity.ok().eTag(etag).cacheControl(publicCacheControl).body(product);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -62,12 +192,35 @@ public class ProductController {
         }
     }
 
+    // Alta masiva: el cuerpo se lee como stream, sin cargar el documento entero en memoria
+    @PostMapping(value = "/user/{userId}/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importProductsJson(@PathVariable UUID userId, HttpServletRequest request) {
+        return importProducts(() -> productBulkImporter.importJson(userId, request.getInputStream()));
+    }
+
+    @PostMapping(value = "/user/{userId}/bulk", consumes = "text/csv")
+    public ResponseEntity<?> importProductsCsv(@PathVariable UUID userId, HttpServletRequest request) {
+        return importProducts(() -> productBulkImporter.importCsv(userId, request.getReader()));
+    }
+
+    // Control de concurrencia optimista: la versión esperada llega en If-Match (ETag de GET /{id})
+    // o en el campo version del cuerpo. Si otra modificación se adelantó se responde 409 con el ETag actual
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product productDetails) {
+    public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody Product productDetails,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch != null ? parseVersionETag(ifMatch) : productDetails.getVersion();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid If-Match header: " + ifMatch);
+        }
         try {
-            Product updatedProduct = productService.updateProduct(id, productDetails);
-            ProductResponseDTO productDTO = new ProductResponseDTO(updatedProduct);
-            return ResponseEntity.ok(productDTO);
+            ProductResponseDTO productDTO = productService.updateProduct(id, productDetails, expectedVersion);
+            return ResponseEntity.ok().eTag(versionETag(productDTO.getVersion())).body(productDTO);
+        } catch (ProductVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .eTag(versionETag(e.getCurrentVersion()))
+                    .body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -82,4 +235,104 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
+
+    private ResponseEntity<?> importProducts(BulkImport bulkImport) {
+        BulkImportResultDTO result;
+        try {
+            result = bulkImport.run();
+        } catch (IOException | JacksonException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unreadable request body: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+        // Si ninguna fila era válida la petición entera es incorrecta; si no, se informa fila a fila
+        HttpStatus status = result.getInserted() == 0 && !result.getErrors().isEmpty()
+                ? HttpStatus.BAD_REQUEST
+                : HttpStatus.OK;
+        return ResponseEntity.status(status).body(result);
+    }
+
+    @FunctionalInterface
+    private interface BulkImport {
+        BulkImportResultDTO run() throws IOException;
+    }
+
+    private static String versionETag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Acepta "3", W/"3" o 3
+    private static Long parseVersionETag(String etag) {
+        String value = etag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return Long.parseLong(value);
+    }
+
+    // Bytes ya serializados: se escriben sin pasar por Jackson, comprimidos si el cliente acepta gzip
+    private ResponseEntity<byte[]> rendered(RenderedResponse response, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .cacheControl(publicCacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(acceptEncoding) && response.gzip().length < response.json().length) {
+            return builder.eTag(gzipETag(response.etag()))
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(response.gzip());
+        }
+        return builder.eTag(response.etag()).body(response.json());
+    }
+
+    // Los bytes gzip y los sin comprimir son representaciones distintas: cada una lleva su ETag fuerte ("c5-gz")
+    private static String gzipETag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    // Acepta en If-None-Match el ETag de cualquiera de las dos codificaciones (comparación débil, como
+    // checkNotModified) y devuelve el que coincide, que es el que lleva el 304; null si ninguno
+    private static String matchingETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        String gzipETag = gzipETag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return etag;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals(gzipETag)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                // "gzip;q=0" significa que no se acepta
+                return parts.length < 2 || !parts[1].trim().matches("(?i)q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(publicCacheControl)
+                .build();
+    }
 }
@@ -5,6 +5,7 @@ import com.example.ecotrade.dto.LoginRequestDTO;
 import com.example.ecotrade.dto.RegisterRequestDTO;
 import com.example.ecotrade.dto.UserResponseDTO;
 import com.example.ecotrade.model.User;
+import com.example.ecotrade.service.UserIdentityConflictException;
 import com.example.ecotrade.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +14,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/users")
@@ -30,25 +31,19 @@ public class UserController {
 
     @GetMapping
     public ResponseEntity<List<UserResponseDTO>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        List<UserResponseDTO> userDTOs = users.stream()
-                .map(UserResponseDTO::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(userDTOs);
+        return ResponseEntity.ok(userService.getAllUsers());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<UserResponseDTO> getUserById(@PathVariable UUID id) {
         return userService.getUserById(id)
-                .map(UserResponseDTO::new)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/email/{email}")
     public ResponseEntity<UserResponseDTO> getUserByEmail(@PathVariable String email) {
-        return userService.getUserByEmail(email)
-                .map(UserResponseDTO::new)
+        return userService.getIdentityByEmail(email)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -94,25 +89,23 @@ public class UserController {
     @PostMapping("/auth/register")
     public ResponseEntity<AuthResponseDTO> register(@RequestBody RegisterRequestDTO registerRequest) {
         try {
-            // Solo sincronizar datos adicionales si el usuario no existe
-            if (!userService.existsByEmail(registerRequest.getEmail())) {
-                User user = new User();
-                user.setId(UUID.fromString(registerRequest.getSupabaseId()));
-                user.setEmail(registerRequest.getEmail());
-                user.setDisplayName(registerRequest.getName());
-                user.setSupabaseId(registerRequest.getSupabaseId());
-
-                User createdUser = userService.createUser(user);
-                UserResponseDTO userDTO = new UserResponseDTO(createdUser);
-
+            // Alta idempotente: solo se sincronizan los datos si el usuario no existe
+            UserService.RegistrationResult result = userService.registerUser(
+                    UUID.fromString(registerRequest.getSupabaseId()),
+                    registerRequest.getEmail(),
+                    registerRequest.getName(),
+                    registerRequest.getSupabaseId());
+
+            if (result.created()) {
                 return ResponseEntity.status(HttpStatus.CREATED)
-                        .body(new AuthResponseDTO("Usuario registrado exitosamente", userDTO, true));
+                        .body(new AuthResponseDTO("Usuario registrado exitosamente", result.user(), true));
             }
-            
+
             // Si ya existe, solo devolver los datos
-            User existingUser = userService.getUserByEmail(registerRequest.getEmail()).orElseThrow();
-            UserResponseDTO userDTO = new UserResponseDTO(existingUser);
-            return ResponseEntity.ok(new AuthResponseDTO("Usuario ya existe", userDTO, true));
+            return ResponseEntity.ok(new AuthResponseDTO("Usuario ya existe", result.user(), true));
+        } catch (UserIdentityConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new AuthResponseDTO("Error: " + e.getMessage(), null, false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new AuthResponseDTO("Error: " + e.getMessage(), null, false));
@@ -120,14 +113,15 @@ public class UserController {
     }
 
     @PostMapping("/auth/login")
-    public ResponseEntity<AuthResponseDTO> login(@RequestBody LoginRequestDTO loginRequest) {
+    public ResponseEntity<AuthResponseDTO> login(@RequestBody LoginRequestDTO loginRequest, HttpServletRequest request) {
         try {
             // El token ya fue validado por el filtro JWT
-            // Solo buscar y devolver información del usuario
-            User user = userService.getUserByEmail(loginRequest.getEmail())
+            // Solo buscar y devolver información del usuario (desde la caché de identidades si es posible)
+            UserResponseDTO userDTO = principalIdentity(request)
+                    .filter(user -> user.getEmail().equals(loginRequest.getEmail()))
+                    .or(() -> userService.getIdentityByEmail(loginRequest.getEmail()))
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-            UserResponseDTO userDTO = new UserResponseDTO(user);
             return ResponseEntity.ok(new AuthResponseDTO("Login exitoso", userDTO, true));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -141,18 +135,33 @@ public class UserController {
     @GetMapping("/me")
     public ResponseEntity<UserResponseDTO> getCurrentUser(HttpServletRequest request) {
         try {
-            System.out.println("Fetching current user");
             String userEmail = (String) request.getAttribute("userEmail");
             if (userEmail == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            User user = userService.getUserByEmail(userEmail)
+            UserResponseDTO user = principalIdentity(request)
                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-            return ResponseEntity.ok(new UserResponseDTO(user));
+            return ResponseEntity.ok(user);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    // Identidad del usuario autenticado a partir de los atributos que deja JwtAuthenticationFilter
+    private Optional<UserResponseDTO> principalIdentity(HttpServletRequest request) {
+        String userEmail = (String) request.getAttribute("userEmail");
+        String userId = (String) request.getAttribute("userId");
+        if (userEmail == null) {
+            return Optional.empty();
+        }
+        UUID id = null;
+        try {
+            id = userId != null ? UUID.fromString(userId) : null;
+        } catch (IllegalArgumentException e) {
+            // sub no es un UUID: se busca solo por email
+        }
+        return userService.getIdentity(id, userEmail);
+    }
 }
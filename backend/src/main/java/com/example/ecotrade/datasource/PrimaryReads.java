@@ -0,0 +1,33 @@
+package com.example.ecotrade.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Fuerza que las lecturas de solo lectura ejecutadas dentro de call(...) vayan al primario.
+ * Para resultados que se guardan en caché hasta el siguiente cambio: una lectura atrasada de una réplica
+ * quedaría servida durante mucho más tiempo que el retraso máximo tolerado.
+ * Sin réplicas configuradas no tiene ningún efecto.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> FORCED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        Boolean previous = FORCED.get();
+        FORCED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCED.remove();
+            }
+        }
+    }
+
+    static boolean isForced() {
+        return FORCED.get() != null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ecotrade.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide periódicamente el retraso de replicación de cada réplica con lagQuery (segundos) y decide
+ * cuáles pueden atender lecturas: solo las que respondieron a la última comprobación con un retraso
+ * no mayor que maxLag. Una réplica sin medición (arranque, error de conexión) no se usa.
+ * Publica el retraso en el gauge ecotrade.datasource.replica.lag (etiqueta replica).
+ */
+public class ReplicaLagMonitor implements SmartLifecycle, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final Map<String, DataSource> dataSources;
+    private final Map<String, JdbcTemplate> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final Map<String, Double> lagSeconds = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, String lagQuery, Duration maxLag,
+                             Duration checkInterval, MeterRegistry meterRegistry) {
+        this.dataSources = Map.copyOf(replicas);
+        this.replicas = new ConcurrentHashMap<>();
+        replicas.forEach((name, dataSource) -> this.replicas.put(name, new JdbcTemplate(dataSource)));
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        for (String name : replicas.keySet()) {
+            Gauge.builder("ecotrade.datasource.replica.lag", lagSeconds, lags -> lags.getOrDefault(name, Double.NaN))
+                    .description("Retraso de replicación medido en la última comprobación")
+                    .baseUnit("seconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public Map<String, DataSource> dataSources() {
+        return dataSources;
+    }
+
+    public boolean isFresh(String replica) {
+        Double lag = lagSeconds.get(replica);
+        return lag != null && lag * 1000 <= maxLag.toMillis();
+    }
+
+    public List<String> freshReplicas() {
+        return replicas.keySet().stream().filter(this::isFresh).sorted().toList();
+    }
+
+    public void checkNow() {
+        replicas.forEach((name, jdbcTemplate) -> {
+            try {
+                Number lag = jdbcTemplate.queryForObject(lagQuery, Number.class);
+                lagSeconds.put(name, lag == null ? 0 : lag.doubleValue());
+            } catch (RuntimeException e) {
+                // Sin medición la réplica deja de recibir lecturas hasta la siguiente comprobación correcta
+                if (lagSeconds.remove(name) != null) {
+                    log.warn("Réplica {} fuera de servicio: {}", name, e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        checkNow();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkNow, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        scheduler = executor;
+        log.info("Réplicas de lectura: {} (retraso máximo {} ms)", replicas.keySet(), maxLag.toMillis());
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    // Los pools de las réplicas no son beans: se cierran con el monitor al parar el contexto
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
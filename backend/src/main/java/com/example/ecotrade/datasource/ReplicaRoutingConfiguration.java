@@ -0,0 +1,117 @@
+package com.example.ecotrade.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de lectura. Se activa con ecotrade.datasource.replicas.urls (lista separada por comas).
+ *
+ * El DataSource de la aplicación pasa a ser un LazyConnectionDataSourceProxy sobre el primario: la conexión
+ * real se pide en la primera sentencia, cuando Spring ya ha marcado como read-only la conexión de una
+ * transacción @Transactional(readOnly = true). Esas conexiones salen de ReplicaRoutingDataSource; todas
+ * las demás (escrituras, lecturas sin transacción) siguen yendo al primario.
+ * Los pools de las réplicas copian la configuración spring.datasource.hikari.* del primario.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "ecotrade.datasource.replicas.urls")
+public class ReplicaRoutingConfiguration {
+
+    // Segundos desde la última transacción aplicada; 0 si la réplica ya ha aplicado todo lo recibido
+    static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+            "THEN 0 ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(
+            @Value("${ecotrade.datasource.replicas.sticky-window:PT10S}") Duration stickyWindow) {
+        return new ReadYourWrites(stickyWindow, 100_000);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+                                               @Value("${ecotrade.datasource.replicas.urls}") List<String> urls,
+                                               @Value("${ecotrade.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                               @Value("${ecotrade.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                               @Value("${ecotrade.datasource.replicas.lag-query:" + POSTGRES_LAG_QUERY + "}") String lagQuery,
+                                               @Value("${ecotrade.datasource.replicas.max-lag:PT5S}") Duration maxLag,
+                                               @Value("${ecotrade.datasource.replicas.lag-check-interval:PT2S}") Duration checkInterval,
+                                               MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i).trim();
+            if (url.isEmpty()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url);
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, replica);
+        }
+        return new ReplicaLagMonitor(replicas, lagQuery, maxLag, checkInterval, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource readOnly = new ReplicaRoutingDataSource(primaryDataSource,
+                replicaLagMonitor.dataSources(), replicaLagMonitor, readYourWrites, meterRegistry);
+        readOnly.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(
+                new WriteTrackingDataSource(primaryDataSource, readYourWrites));
+        proxy.setReadOnlyDataSource(readOnly);
+        return proxy;
+    }
+
+    // Las conexiones del primario dentro de una transacción de escritura fijan al usuario al primario
+    private static class WriteTrackingDataSource extends DelegatingDataSource {
+
+        private final ReadYourWrites readYourWrites;
+
+        WriteTrackingDataSource(DataSource primary, ReadYourWrites readYourWrites) {
+            super(primary);
+            this.readYourWrites = readYourWrites;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            readYourWrites.recordWriteOnCommit();
+            return super.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            readYourWrites.recordWriteOnCommit();
+            return super.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ecotrade.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Destino de las conexiones de solo lectura (ver ReplicaRoutingConfiguration): reparte en turno rotatorio
+ * entre las réplicas al día y vuelve al primario si se pide expresamente (PrimaryReads), si el usuario
+ * acaba de escribir o si ninguna réplica cumple el retraso máximo.
+ * Cada decisión se cuenta en ecotrade.datasource.reads (target, reason).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter toReplica;
+    private final Counter forcedToPrimary;
+    private final Counter stickyToPrimary;
+    private final Counter staleToPrimary;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReplicaLagMonitor lagMonitor, ReadYourWrites readYourWrites,
+                                    MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.toReplica = reads(meterRegistry, "replica", "fresh");
+        this.forcedToPrimary = reads(meterRegistry, PRIMARY, "forced");
+        this.stickyToPrimary = reads(meterRegistry, PRIMARY, "read-your-writes");
+        this.staleToPrimary = reads(meterRegistry, PRIMARY, "no-fresh-replica");
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("ecotrade.datasource.reads")
+                .description("Conexiones de solo lectura según su destino")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (PrimaryReads.isForced()) {
+            forcedToPrimary.increment();
+            return PRIMARY;
+        }
+        if (readYourWrites.isSticky()) {
+            stickyToPrimary.increment();
+            return PRIMARY;
+        }
+        List<String> fresh = lagMonitor.freshReplicas();
+        if (fresh.isEmpty()) {
+            staleToPrimary.increment();
+            return PRIMARY;
+        }
+        toReplica.increment();
+        return fresh.get(Math.floorMod(next.getAndIncrement(), fresh.size()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ecotrade.dto;
+
+import com.example.ecotrade.model.OwnerListingStats;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class OwnerStatsDTO {
+
+    private UUID ownerId;
+    private long listingCount;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double averagePrice;
+    private LocalDateTime newestListingAt;
+
+    // Constructor vacío
+    public OwnerStatsDTO() {
+    }
+
+    // Constructor desde OwnerListingStats; la media se redondea a céntimos
+    public OwnerStatsDTO(OwnerListingStats stats) {
+        this.ownerId = stats.getOwnerId();
+        this.listingCount = stats.getListingCount();
+        this.minPrice = stats.getMinPrice();
+        this.maxPrice = stats.getMaxPrice();
+        this.averagePrice = Math.round(stats.getPriceSum() / stats.getListingCount() * 100) / 100.0;
+        this.newestListingAt = stats.getNewestCreatedAt();
+    }
+
+    // Dueño sin productos: los precios y la fecha van a null
+    public static OwnerStatsDTO empty(UUID ownerId) {
+        OwnerStatsDTO stats = new OwnerStatsDTO();
+        stats.ownerId = ownerId;
+        return stats;
+    }
+
+    // Getters and Setters
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(UUID ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public long getListingCount() {
+        return listingCount;
+    }
+
+    public void setListingCount(long listingCount) {
+        this.listingCount = listingCount;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public void setAveragePrice(Double averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+
+    public LocalDateTime getNewestListingAt() {
+        return newestListingAt;
+    }
+
+    public void setNewestListingAt(LocalDateTime newestListingAt) {
+        this.newestListingAt = newestListingAt;
+    }
+}
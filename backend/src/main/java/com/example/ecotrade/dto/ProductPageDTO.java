@@ -0,0 +1,43 @@
+package com.example.ecotrade.dto;
+
+import java.util.List;
+
+public class ProductPageDTO {
+
+    private List<ProductResponseDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public ProductPageDTO() {
+    }
+
+    public ProductPageDTO(List<ProductResponseDTO> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<ProductResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductResponseDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
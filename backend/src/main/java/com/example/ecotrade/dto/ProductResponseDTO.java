@@ -14,6 +14,7 @@ public class ProductResponseDTO {
     private String description;
     private String useTime;
     private String userName;
+    private Long version;
 
     // Constructor vacío
     public ProductResponseDTO() {
@@ -28,11 +29,26 @@ public class ProductResponseDTO {
         this.createdAt = product.getCreatedAt();
         this.description = product.getDescription();
         this.useTime = product.getUseTime();
+        this.version = product.getVersion();
         if (product.getUser() != null) {
             this.userName = product.getUser().getDisplayName();
         }
     }
 
+    // Constructor para proyecciones JPQL (producto + nombre del dueño en una sola consulta)
+    public ProductResponseDTO(Long id, String name, Double price, UUID ownerId, LocalDateTime createdAt,
+                              String description, String useTime, String userName, Long version) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.ownerId = ownerId;
+        this.createdAt = createdAt;
+        this.description = description;
+        this.useTime = useTime;
+        this.userName = userName;
+        this.version = version;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -97,4 +113,12 @@ public class ProductResponseDTO {
     public void setUserName(String userName) {
         this.userName = userName;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -27,6 +27,17 @@ public class UserResponseDTO {
         this.supabaseId = user.getSupabaseId();
     }
 
+    // Constructor para proyecciones JPQL (ver UserRepository.DTO_SELECT)
+    public UserResponseDTO(UUID id, String email, String displayName, String avatarUrl, LocalDateTime createdAt,
+                           String supabaseId) {
+        this.id = id;
+        this.email = email;
+        this.displayName = displayName;
+        this.avatarUrl = avatarUrl;
+        this.createdAt = createdAt;
+        this.supabaseId = supabaseId;
+    }
+
     // Getters and Setters
     public UUID getId() {
         return id;
@@ -0,0 +1,9 @@
+package com.example.ecotrade.event;
+
+/**
+ * Publicado por CatalogVersions cuando esta instancia ya no puede saber qué cambió: los cambios de otras
+ * instancias que le faltaban se borraron de catalog_changes antes de leerlos (instancia parada o sin
+ * base de datos más tiempo que la retención). Los consumidores descartan o reconstruyen todo lo que tienen.
+ */
+public record CatalogResyncEvent() {
+}
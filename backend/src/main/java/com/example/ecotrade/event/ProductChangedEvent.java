@@ -0,0 +1,39 @@
+package com.example.ecotrade.event;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+
+import java.util.UUID;
+
+/**
+ * Publicado por ProductService en cada alta, modificación o baja de un producto.
+ * previous solo se informa en DELETED (las modificaciones no leen la fila antes del UPDATE)
+ * y current es null en DELETED.
+ */
+public record ProductChangedEvent(ChangeType type, ProductResponseDTO previous, ProductResponseDTO current) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static ProductChangedEvent created(ProductResponseDTO current) {
+        return new ProductChangedEvent(ChangeType.CREATED, null, current);
+    }
+
+    public static ProductChangedEvent updated(ProductResponseDTO current) {
+        return new ProductChangedEvent(ChangeType.UPDATED, null, current);
+    }
+
+    public static ProductChangedEvent deleted(ProductResponseDTO previous) {
+        return new ProductChangedEvent(ChangeType.DELETED, previous, null);
+    }
+
+    public Long productId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+
+    public UUID ownerId() {
+        return current != null ? current.getOwnerId() : previous.getOwnerId();
+    }
+}
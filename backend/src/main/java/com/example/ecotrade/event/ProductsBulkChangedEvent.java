@@ -0,0 +1,24 @@
+package com.example.ecotrade.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publicado tras operaciones masivas sobre los productos de un dueño (importación, borrado en bloque),
+ * en las que no se emite un ProductChangedEvent por fila. Los consumidores recargan lo relativo a ese dueño.
+ * deletedProductIds está vacío en las importaciones y contiene los ids borrados en un borrado en bloque.
+ */
+public record ProductsBulkChangedEvent(UUID ownerId, List<Long> deletedProductIds) {
+
+    public static ProductsBulkChangedEvent imported(UUID ownerId) {
+        return new ProductsBulkChangedEvent(ownerId, List.of());
+    }
+
+    public static ProductsBulkChangedEvent deleted(UUID ownerId, List<Long> productIds) {
+        return new ProductsBulkChangedEvent(ownerId, List.copyOf(productIds));
+    }
+
+    public boolean isDeletion() {
+        return !deletedProductIds.isEmpty();
+    }
+}
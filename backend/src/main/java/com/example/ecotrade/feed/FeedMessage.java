@@ -0,0 +1,24 @@
+package com.example.ecotrade.feed;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Un evento del feed ya serializado: el JSON se genera una vez por cambio y se comparte entre todos
+ * los clientes. Sin nombre es un comentario SSE (keepalive), que el navegador ignora.
+ */
+record FeedMessage(String id, String name, String data) {
+
+    static final FeedMessage HEARTBEAT = new FeedMessage(null, null, null);
+
+    // El cliente ha perdido eventos: debe recargar el catálogo y seguir desde este id
+    static FeedMessage reset(String id) {
+        return new FeedMessage(id, "reset", "{}");
+    }
+
+    SseEmitter.SseEventBuilder toSse() {
+        if (name == null) {
+            return SseEmitter.event().comment("keepalive");
+        }
+        return SseEmitter.event().id(id).name(name).data(data);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.ecotrade.feed;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Un cliente conectado al feed. Los eventos se encolan sin bloquear a quien publica y se envían desde
+ * el executor, como mucho una tarea de envío a la vez por cliente. Se anota cuándo empezó el envío en
+ * curso para que el feed pueda desconectar a un cliente que lleva demasiado tiempo sin leer.
+ *
+ * La cola está acotada y se compacta: un evento nuevo de un producto sustituye al pendiente del mismo
+ * producto (el cliente solo necesita el último estado). Si aun así se llena, el cliente es demasiado
+ * lento: se descarta lo pendiente y se le envía un evento reset para que recargue el catálogo.
+ */
+final class FeedSubscriber {
+
+    /**
+     * Destino real de los mensajes (el SseEmitter de la petición).
+     */
+    interface Sink {
+        void send(FeedMessage message) throws IOException;
+
+        void close();
+    }
+
+    private final UUID ownerFilter;
+    private final int maxPending;
+    private final Sink sink;
+    private final Executor executor;
+    private final Consumer<FeedSubscriber> onFailure;
+
+    private static final long NOT_SENDING = Long.MIN_VALUE;
+    // System.nanoTime() al empezar el envío en curso
+    private volatile long sendStartedAt = NOT_SENDING;
+
+    // Protegidos por this; las secciones críticas no hacen E/S
+    private final LinkedHashMap<String, FeedMessage> pending = new LinkedHashMap<>();
+    private FeedMessage resetAfterOverflow;
+    private boolean heartbeatDue;
+    private boolean draining;
+    private boolean closed;
+
+    FeedSubscriber(UUID ownerFilter, int maxPending, Sink sink, Executor executor, Consumer<FeedSubscriber> onFailure) {
+        this.ownerFilter = ownerFilter;
+        this.maxPending = maxPending;
+        this.sink = sink;
+        this.executor = executor;
+        this.onFailure = onFailure;
+    }
+
+    boolean accepts(UUID ownerId) {
+        return ownerFilter == null || ownerFilter.equals(ownerId);
+    }
+
+    enum Offer {
+        QUEUED,
+        // Sustituyó a un mensaje pendiente de la misma clave
+        COALESCED,
+        // La cola estaba llena: se descartó lo pendiente y se enviará un reset
+        OVERFLOWED
+    }
+
+    Offer offer(String coalesceKey, FeedMessage message) {
+        Offer result;
+        synchronized (this) {
+            if (closed) {
+                return Offer.QUEUED;
+            }
+            if (resetAfterOverflow != null) {
+                // Ya se va a pedir una recarga completa: solo importa el id más reciente
+                resetAfterOverflow = FeedMessage.reset(message.id());
+                result = Offer.COALESCED;
+            } else if (pending.remove(coalesceKey) != null) {
+                // remove + put deja el mensaje al final, así los ids pendientes siguen en orden creciente
+                pending.put(coalesceKey, message);
+                result = Offer.COALESCED;
+            } else if (pending.size() >= maxPending) {
+                pending.clear();
+                resetAfterOverflow = FeedMessage.reset(message.id());
+                result = Offer.OVERFLOWED;
+            } else {
+                pending.put(coalesceKey, message);
+                result = Offer.QUEUED;
+            }
+        }
+        scheduleDrain();
+        return result;
+    }
+
+    void heartbeat() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            heartbeatDue = true;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * true si hay un envío en curso desde hace timeoutNanos o más.
+     */
+    boolean stalled(long now, long timeoutNanos) {
+        long startedAt = sendStartedAt;
+        return startedAt != NOT_SENDING && now - startedAt >= timeoutNanos;
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            pending.clear();
+        }
+        sink.close();
+    }
+
+    /**
+     * Como close, pero el cierre de la conexión se hace en el executor: con un envío bloqueado, cerrar
+     * el SseEmitter espera a que termine la escritura y no debe frenar a quien llama.
+     */
+    void abandon() {
+        synchronized (this) {
+            closed = true;
+            pending.clear();
+        }
+        executor.execute(sink::close);
+    }
+
+    private void scheduleDrain() {
+        synchronized (this) {
+            if (draining || closed) {
+                return;
+            }
+            draining = true;
+        }
+        executor.execute(this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            List<FeedMessage> batch;
+            synchronized (this) {
+                batch = new ArrayList<>(pending.size() + 2);
+                if (resetAfterOverflow != null) {
+                    batch.add(resetAfterOverflow);
+                    resetAfterOverflow = null;
+                }
+                batch.addAll(pending.values());
+                pending.clear();
+                if (batch.isEmpty() && heartbeatDue) {
+                    batch.add(FeedMessage.HEARTBEAT);
+                }
+                heartbeatDue = false;
+                if (batch.isEmpty() || closed) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                for (FeedMessage message : batch) {
+                    sendStartedAt = System.nanoTime();
+                    sink.send(message);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Conexión cerrada por el cliente o respuesta ya terminada
+                synchronized (this) {
+                    draining = false;
+                }
+                onFailure.accept(this);
+                return;
+            } finally {
+                sendStartedAt = NOT_SENDING;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.ecotrade.feed;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed de cambios de productos (Server-Sent Events). Cada cambio confirmado se serializa una vez,
+ * recibe un id creciente y se guarda en un histórico acotado (replaySize) para que un cliente que se
+ * reconecta con Last-Event-ID reciba lo que se perdió. Si el id ya no está en el histórico, o es de
+ * otro arranque del servidor, el cliente recibe un evento reset y debe recargar el catálogo.
+ *
+ * Las conexiones son asíncronas (SseEmitter): una conexión inactiva no ocupa ningún hilo, solo su
+ * FeedSubscriber. Los envíos se hacen en hilos virtuales propios del feed (un envío bloqueado en un
+ * socket lento no ocupa un hilo del executor de la aplicación, con hilos virtuales en Tomcat o sin ellos)
+ * y cada cliente tiene su propia cola acotada, así que un cliente lento no frena a los demás ni a la
+ * transacción que publicó el cambio. Un cliente con un envío atascado más de send-timeout se desconecta.
+ * Un keepalive periódico mantiene abiertas las conexiones a través de proxies y detecta las cerradas.
+ */
+@Component
+public class ProductFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFeed.class);
+
+    private final JsonMapper jsonMapper;
+    private final Executor executor;
+    private final int replaySize;
+    private final int maxPending;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final Duration sendTimeout;
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter coalesced;
+    private final Counter overflowed;
+    private final Counter stalled;
+
+    // Los ids son <arranque>-<secuencia>: un id de otro arranque no se puede reanudar
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // Publicar y suscribirse se excluyen: un cliente nuevo recibe cada evento una sola vez,
+    // o en la reanudación o en directo
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Entry> history = new ArrayDeque<>();
+    private long sequence;
+    private volatile ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ProductFeed(JsonMapper jsonMapper,
+                       @Value("${ecotrade.feed.replay-size:1000}") int replaySize,
+                       @Value("${ecotrade.feed.max-pending:256}") int maxPending,
+                       @Value("${ecotrade.feed.max-subscribers:10000}") int maxSubscribers,
+                       @Value("${ecotrade.feed.timeout:PT30M}") Duration timeout,
+                       @Value("${ecotrade.feed.heartbeat:PT25S}") Duration heartbeat,
+                       @Value("${ecotrade.feed.send-timeout:PT30S}") Duration sendTimeout,
+                       MeterRegistry meterRegistry) {
+        this(jsonMapper, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("product-feed-", 0).factory()),
+                replaySize, maxPending, maxSubscribers, timeout, heartbeat, sendTimeout, meterRegistry);
+    }
+
+    ProductFeed(JsonMapper jsonMapper, Executor executor, int replaySize, int maxPending, int maxSubscribers,
+                Duration timeout, Duration heartbeat, Duration sendTimeout, MeterRegistry meterRegistry) {
+        this.jsonMapper = jsonMapper;
+        this.executor = executor;
+        this.replaySize = replaySize;
+        this.maxPending = maxPending;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.sendTimeout = sendTimeout;
+        Gauge.builder("ecotrade.feed.subscribers", subscribers, Set::size)
+                .description("Clientes conectados al feed de productos")
+                .register(meterRegistry);
+        this.coalesced = events(meterRegistry, "coalesced");
+        this.overflowed = events(meterRegistry, "overflowed");
+        this.stalled = Counter.builder("ecotrade.feed.stalled")
+                .description("Clientes desconectados por un envío atascado más de send-timeout")
+                .register(meterRegistry);
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ecotrade.feed.events")
+                .description("Eventos del feed no entregados tal cual a un cliente lento")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre una conexión. ownerId filtra los cambios de un dueño (null = todos) y lastEventId es el
+     * último id recibido antes de reconectar (null en la primera conexión).
+     *
+     * @throws IllegalStateException si ya hay maxSubscribers clientes conectados
+     */
+    public SseEmitter subscribe(UUID ownerId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        FeedSubscriber subscriber = subscribe(ownerId, lastEventId, new FeedSubscriber.Sink() {
+            @Override
+            public void send(FeedMessage message) throws IOException {
+                emitter.send(message.toSse());
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    FeedSubscriber subscribe(UUID ownerId, String lastEventId, FeedSubscriber.Sink sink) {
+        FeedSubscriber subscriber = new FeedSubscriber(ownerId, maxPending, sink, executor, this::disconnect);
+        lock.lock();
+        try {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new IllegalStateException("Too many feed subscribers");
+            }
+            subscribers.add(subscriber);
+            replay(subscriber, lastEventId);
+        } finally {
+            lock.unlock();
+        }
+        // Primer envío inmediato: el cliente ve la conexión abierta aunque no haya cambios
+        subscriber.heartbeat();
+        return subscriber;
+    }
+
+    // Llamado con el lock tomado
+    private void replay(FeedSubscriber subscriber, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        long lastSequence = parseSequence(lastEventId);
+        long oldest = history.isEmpty() ? sequence + 1 : history.peekFirst().sequence();
+        // Se admite el id anterior al más antiguo guardado: en ese caso no falta nada
+        if (lastSequence < oldest - 1 || lastSequence > sequence) {
+            offer(subscriber, "reset", FeedMessage.reset(epoch + "-" + sequence));
+            return;
+        }
+        for (Entry entry : history) {
+            if (entry.sequence() > lastSequence && subscriber.accepts(entry.ownerId())) {
+                offer(subscriber, entry.coalesceKey(), entry.message());
+            }
+        }
+    }
+
+    // -1 para ids ilegibles o de otro arranque: fuerza un reset
+    private long parseSequence(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void disconnect(FeedSubscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.close();
+        }
+    }
+
+    /**
+     * Desconecta a los clientes con un envío en curso desde hace send-timeout o más. Su hueco queda libre
+     * y no se les encola nada más; la conexión se cierra en cuanto termine (o falle) la escritura.
+     */
+    void disconnectStalled() {
+        long now = System.nanoTime();
+        for (FeedSubscriber subscriber : subscribers) {
+            if (subscriber.stalled(now, sendTimeout.toNanos()) && subscribers.remove(subscriber)) {
+                stalled.increment();
+                subscriber.abandon();
+            }
+        }
+    }
+
+    // Después de las cachés y de los ETag: un cliente que recarga al recibir el evento ve ya el cambio
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductPayload payload = new ProductPayload(event.type(), event.productId(), event.ownerId(), event.current());
+        publish(event.ownerId(), "product:" + event.productId(), "product", payload);
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        BulkPayload payload = new BulkPayload(event.ownerId(), event.deletedProductIds());
+        publish(event.ownerId(), "owner:" + event.ownerId(), "bulk", payload);
+    }
+
+    private void publish(UUID ownerId, String coalesceKey, String name, Object payload) {
+        String data = jsonMapper.writeValueAsString(payload);
+        lock.lock();
+        try {
+            long next = ++sequence;
+            Entry entry = new Entry(next, ownerId, coalesceKey, new FeedMessage(epoch + "-" + next, name, data));
+            history.addLast(entry);
+            if (history.size() > replaySize) {
+                history.removeFirst();
+            }
+            for (FeedSubscriber subscriber : subscribers) {
+                if (subscriber.accepts(ownerId)) {
+                    offer(subscriber, coalesceKey, entry.message());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void offer(FeedSubscriber subscriber, String coalesceKey, FeedMessage message) {
+        switch (subscriber.offer(coalesceKey, message)) {
+            case COALESCED -> coalesced.increment();
+            case OVERFLOWED -> overflowed.increment();
+            case QUEUED -> {
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> subscribers.forEach(FeedSubscriber::heartbeat),
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::disconnectStalled,
+                sendTimeout.toMillis(), sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    // Al parar se cierran las conexiones; los clientes reconectan con Last-Event-ID y reciben un reset
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (FeedSubscriber subscriber : List.copyOf(subscribers)) {
+            disconnect(subscriber);
+        }
+        log.info("Feed de productos cerrado");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private record Entry(long sequence, UUID ownerId, String coalesceKey, FeedMessage message) {
+    }
+
+    // Cuerpo (data) de los eventos; product es null en DELETED
+    record ProductPayload(ProductChangedEvent.ChangeType type, Long productId, UUID ownerId,
+                                  ProductResponseDTO product) {
+    }
+
+    record BulkPayload(UUID ownerId, List<Long> deletedProductIds) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ecotrade.model;
+
+import jakarta.persistence.*;
+
+// Versión global del catálogo (una sola fila, id = 1). Cada transacción que cambia productos la sube antes
+// del commit; el bloqueo de la fila hace que las versiones se confirmen en orden (ver CatalogVersions)
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // Constructors
+    public CatalogVersion() {
+    }
+
+    public CatalogVersion(Integer id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
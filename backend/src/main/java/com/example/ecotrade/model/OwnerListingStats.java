@@ -0,0 +1,95 @@
+package com.example.ecotrade.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Agregados de los productos de un dueño, mantenidos por OwnerStatsService en la misma transacción
+// que cada alta, modificación o baja. Solo existe fila para dueños con al menos un producto
+@Entity
+@Table(name = "owner_listing_stats")
+public class OwnerListingStats {
+
+    @Id
+    @Column(name = "owner_id")
+    private UUID ownerId;
+
+    @Column(name = "listing_count", nullable = false)
+    private Long listingCount;
+
+    @Column(name = "price_sum", nullable = false)
+    private Double priceSum;
+
+    @Column(name = "min_price", nullable = false)
+    private Double minPrice;
+
+    @Column(name = "max_price", nullable = false)
+    private Double maxPrice;
+
+    @Column(name = "newest_created_at", nullable = false)
+    private LocalDateTime newestCreatedAt;
+
+    // Constructors
+    public OwnerListingStats() {
+    }
+
+    // También se usa en JPQL para calcular los agregados desde Product (ver OwnerListingStatsRepository)
+    public OwnerListingStats(UUID ownerId, Long listingCount, Double priceSum, Double minPrice, Double maxPrice,
+                             LocalDateTime newestCreatedAt) {
+        this.ownerId = ownerId;
+        this.listingCount = listingCount;
+        this.priceSum = priceSum;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.newestCreatedAt = newestCreatedAt;
+    }
+
+    // Getters and Setters
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(UUID ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getListingCount() {
+        return listingCount;
+    }
+
+    public void setListingCount(Long listingCount) {
+        this.listingCount = listingCount;
+    }
+
+    public Double getPriceSum() {
+        return priceSum;
+    }
+
+    public void setPriceSum(Double priceSum) {
+        this.priceSum = priceSum;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public LocalDateTime getNewestCreatedAt() {
+        return newestCreatedAt;
+    }
+
+    public void setNewestCreatedAt(LocalDateTime newestCreatedAt) {
+        this.newestCreatedAt = newestCreatedAt;
+    }
+}
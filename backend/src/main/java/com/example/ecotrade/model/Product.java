@@ -5,7 +5,13 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "Product")
+@Table(name = "Product", indexes = {
+        // Índices para la paginación por cursor (ver ProductRepository)
+        @Index(name = "idx_product_created_at_id", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        // Listas por dueño y borrado en bloque de los productos de un usuario (ver UserService.deleteUser)
+        @Index(name = "idx_product_owner_id", columnList = "owner_id")
+})
 public class Product {
 
     @Id
@@ -34,6 +40,12 @@ public class Product {
     @JoinColumn(name = "owner_id", referencedColumnName = "id", insertable = false, updatable = false)
     private User user;
 
+    // Bloqueo optimista: las modificaciones son un UPDATE condicional sobre esta columna (ver ProductRepository).
+    // El DEFAULT rellena las filas existentes al añadir la columna y las insertadas por JDBC en el alta masiva
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -108,6 +120,14 @@ public class Product {
         this.useTime = useTime;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public User getUser() {
         return user;
     }
@@ -0,0 +1,43 @@
+package com.example.ecotrade.model;
+
+import jakarta.persistence.*;
+
+// Visitas acumuladas de la ficha de un producto. Fuera de la tabla product para que las escrituras periódicas
+// de ProductViewCounter (JDBC, por lotes) no compitan con las modificaciones del producto ni cambien su versión
+@Entity
+@Table(name = "product_views")
+public class ProductViewCount {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "views", nullable = false)
+    private Long views;
+
+    // Constructors
+    public ProductViewCount() {
+    }
+
+    public ProductViewCount(Long productId, Long views) {
+        this.productId = productId;
+        this.views = views;
+    }
+
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getViews() {
+        return views;
+    }
+
+    public void setViews(Long views) {
+        this.views = views;
+    }
+}
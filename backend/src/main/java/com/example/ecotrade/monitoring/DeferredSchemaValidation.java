@@ -0,0 +1,53 @@
+package com.example.ecotrade.monitoring;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.SchemaValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comprobación del esquema fuera del arranque. Con el perfil fast-start Hibernate no toca el esquema
+ * (ddl-auto=none) ni lee metadatos JDBC al arrancar; con ecotrade.schema.validate-after-startup=true,
+ * una vez la aplicación ya atiende peticiones, se compara el esquema con las entidades en un hilo aparte
+ * y las diferencias quedan en el log. No cambia nada en la base de datos.
+ */
+@Component
+public class DeferredSchemaValidation {
+
+    private static final Logger log = LoggerFactory.getLogger(DeferredSchemaValidation.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+
+    @Autowired
+    public DeferredSchemaValidation(EntityManagerFactory entityManagerFactory,
+                                    @Value("${ecotrade.schema.validate-after-startup:false}") boolean enabled) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            Thread.ofVirtual().name("schema-validation").start(this::validate);
+        }
+    }
+
+    void validate() {
+        long start = System.nanoTime();
+        try {
+            entityManagerFactory.getSchemaManager().validate();
+            log.info("Esquema validado contra las entidades en {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (SchemaValidationException e) {
+            log.error("El esquema de la base de datos no coincide con las entidades: {}. "
+                    + "Aplicar el cambio arrancando una vez sin el perfil fast-start (ddl-auto=update)", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo validar el esquema: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ecotrade.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica, por método de controlador, cuántas sentencias SQL ejecuta cada petición
+ * (ecotrade.sql.statements) y cuánto tiempo pasa en ellas (ecotrade.sql.time).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RequestMeters> metersByHandler = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlRequestStats.end();
+            RequestMeters meters = metersByHandler.computeIfAbsent(
+                    HandlerObservationConvention.handlerName(request), this::meters);
+            meters.statements().record(stats.statements());
+            meters.time().record(stats.nanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private RequestMeters meters(String handler) {
+        return new RequestMeters(
+                DistributionSummary.builder("ecotrade.sql.statements")
+                        .description("Sentencias SQL ejecutadas por petición")
+                        .tag("handler", handler)
+                        .register(meterRegistry),
+                Timer.builder("ecotrade.sql.time")
+                        .description("Tiempo en sentencias SQL por petición")
+                        .tag("handler", handler)
+                        .register(meterRegistry));
+    }
+
+    private record RequestMeters(DistributionSummary statements, Timer time) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ecotrade.monitoring;
+
+/**
+ * Sentencias SQL ejecutadas y tiempo acumulado en la petición HTTP en curso.
+ * RequestMetricsFilter abre y cierra el contador; SqlStatementListener lo alimenta desde Hibernate.
+ * Cada petición se atiende en un único hilo (de plataforma o virtual), así que basta un ThreadLocal.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private SqlRequestStats() {
+    }
+
+    static SqlRequestStats begin() {
+        SqlRequestStats stats = new SqlRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedNanos) {
+        SqlRequestStats stats = CURRENT.get();
+        // Fuera de una petición (arranque, tareas programadas) no se acumula nada
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ecotrade.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Cronometra cada sentencia y cada batch JDBC que ejecuta Hibernate y lo suma a la petición en curso.
+ * Hibernate crea una instancia por sesión (hibernate.session.events.auto), por eso no necesita sincronización.
+ * Las consultas hechas directamente con JdbcTemplate (alta masiva) no pasan por aquí.
+ */
+public class SqlStatementListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SqlRequestStats.record(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        SqlRequestStats.record(System.nanoTime() - batchStart);
+    }
+}
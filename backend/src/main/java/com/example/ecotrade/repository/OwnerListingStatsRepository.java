@@ -0,0 +1,62 @@
+package com.example.ecotrade.repository;
+
+import com.example.ecotrade.model.OwnerListingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OwnerListingStatsRepository extends JpaRepository<OwnerListingStats, UUID> {
+
+    // Suma count productos (un alta o un bloque del alta masiva) sin leer la fila; 0 = el dueño aún no tiene fila
+    @Modifying
+    @Query("UPDATE OwnerListingStats s SET s.listingCount = s.listingCount + :count, s.priceSum = s.priceSum + :priceSum, " +
+            "s.minPrice = least(s.minPrice, :minPrice), s.maxPrice = greatest(s.maxPrice, :maxPrice), " +
+            "s.newestCreatedAt = greatest(s.newestCreatedAt, :newest) WHERE s.ownerId = :ownerId")
+    int addListings(@Param("ownerId") UUID ownerId, @Param("count") long count, @Param("priceSum") double priceSum,
+                    @Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                    @Param("newest") LocalDateTime newest);
+
+    // Cambio de precio. Solo se aplica si el precio anterior no era el mínimo o el máximo que deja de serlo;
+    // en ese caso (0 filas) hay que recalcular el dueño
+    @Modifying
+    @Query("UPDATE OwnerListingStats s SET s.priceSum = s.priceSum - :oldPrice + :newPrice, " +
+            "s.minPrice = least(s.minPrice, :newPrice), s.maxPrice = greatest(s.maxPrice, :newPrice) " +
+            "WHERE s.ownerId = :ownerId AND (s.minPrice < :oldPrice OR :newPrice <= :oldPrice) " +
+            "AND (s.maxPrice > :oldPrice OR :newPrice >= :oldPrice)")
+    int changePrice(@Param("ownerId") UUID ownerId, @Param("oldPrice") double oldPrice,
+                    @Param("newPrice") double newPrice);
+
+    // Baja de un producto que no es el último, ni el más barato, ni el más caro, ni el más reciente;
+    // si lo es (0 filas) hay que recalcular el dueño
+    @Modifying
+    @Query("UPDATE OwnerListingStats s SET s.listingCount = s.listingCount - 1, s.priceSum = s.priceSum - :price " +
+            "WHERE s.ownerId = :ownerId AND s.listingCount > 1 AND s.minPrice < :price AND s.maxPrice > :price " +
+            "AND s.newestCreatedAt > :createdAt")
+    int removeListing(@Param("ownerId") UUID ownerId, @Param("price") double price,
+                      @Param("createdAt") LocalDateTime createdAt);
+
+    // Fila calculada desde la tabla de productos (índice por owner_id). No inserta nada si el dueño no tiene
+    // productos, y nada si otra transacción acaba de crear la fila
+    @Modifying
+    @Query(value = "INSERT INTO owner_listing_stats (owner_id, listing_count, price_sum, min_price, max_price, newest_created_at) " +
+            "SELECT owner_id, COUNT(*), SUM(price), MIN(price), MAX(price), MAX(created_at) FROM product " +
+            "WHERE owner_id = :ownerId GROUP BY owner_id ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertFromProducts(@Param("ownerId") UUID ownerId);
+
+    @Modifying
+    @Query("DELETE FROM OwnerListingStats s WHERE s.ownerId = :ownerId")
+    int deleteByOwnerIdInBulk(@Param("ownerId") UUID ownerId);
+
+    // Agregados reales de todos los dueños, para la reconciliación
+    @Query("SELECT new com.example.ecotrade.model.OwnerListingStats(p.ownerId, COUNT(p), SUM(p.price), " +
+            "MIN(p.price), MAX(p.price), MAX(p.createdAt)) FROM Product p GROUP BY p.ownerId")
+    List<OwnerListingStats> computeAllFromProducts();
+}
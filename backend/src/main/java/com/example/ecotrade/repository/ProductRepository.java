@@ -1,14 +1,94 @@
 package com.example.ecotrade.repository;
 
+import com.example.ecotrade.dto.ProductResponseDTO;
 import com.example.ecotrade.model.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Proyección de lectura: producto + displayName del dueño con un LEFT JOIN,
+    // evita la consulta extra a users por cada producto (N+1) del lazy Product.user
+    String DTO_SELECT = "SELECT new com.example.ecotrade.dto.ProductResponseDTO(" +
+            "p.id, p.name, p.price, p.ownerId, p.createdAt, p.description, p.useTime, u.displayName, p.version) " +
+            "FROM Product p LEFT JOIN p.user u ";
+
     List<Product> findByOwnerId(UUID ownerId);
-}
 
+    // Modificación sin cargar la entidad: un único UPDATE que solo afecta a la fila si la versión
+    // sigue siendo la leída. Sin SELECT ... FOR UPDATE; 0 filas = otra modificación se adelantó o inexistente
+    @Modifying
+    @Query("UPDATE Product p SET p.name = :name, p.price = :price, p.description = :description, " +
+            "p.useTime = :useTime, p.version = p.version + 1 WHERE p.id = :id AND p.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+                        @Param("price") Double price, @Param("description") String description,
+                        @Param("useTime") String useTime);
+
+    @Query("SELECT p.id FROM Product p WHERE p.ownerId = :ownerId")
+    List<Long> findIdsByOwnerId(@Param("ownerId") UUID ownerId);
+
+    // Borrado en bloque: una sola sentencia, sin cargar las entidades ni pasar por la cascada de User.products
+    @Modifying
+    @Query("DELETE FROM Product p WHERE p.ownerId = :ownerId")
+    int deleteByOwnerIdInBulk(@Param("ownerId") UUID ownerId);
+
+    @Query("SELECT p.version FROM Product p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Recorrido completo con cursor del lado del servidor (requiere transacción): el driver
+    // trae las filas de 500 en 500 y, al ser una proyección, no se gestiona ninguna entidad
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query(DTO_SELECT + "ORDER BY p.id")
+    Stream<ProductResponseDTO> streamAll();
+
+    @Query(DTO_SELECT + "WHERE p.id = :id")
+    Optional<ProductResponseDTO> findDtoById(@Param("id") Long id);
+
+    @Query(DTO_SELECT + "WHERE p.id IN :ids")
+    List<ProductResponseDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(DTO_SELECT + "WHERE p.ownerId = :ownerId ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductResponseDTO> findDtosByOwnerId(@Param("ownerId") UUID ownerId);
+
+    // Paginación por keyset: cada página empieza después de (clave de orden, id) del último
+    // elemento, así el coste no depende de la posición en el catálogo como con OFFSET.
+    // La condición "<=" / ">=" redundante permite a PostgreSQL acotar el escaneo del índice.
+
+    @Query(DTO_SELECT + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductResponseDTO> findNewest(Limit limit);
+
+    @Query(DTO_SELECT +
+            "WHERE p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductResponseDTO> findNewestAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(DTO_SELECT + "ORDER BY p.price ASC, p.id ASC")
+    List<ProductResponseDTO> findByPriceAsc(Limit limit);
+
+    @Query(DTO_SELECT +
+            "WHERE p.price >= :price AND (p.price > :price OR p.id > :id) " +
+            "ORDER BY p.price ASC, p.id ASC")
+    List<ProductResponseDTO> findByPriceAscAfter(@Param("price") Double price, @Param("id") Long id, Limit limit);
+
+    @Query(DTO_SELECT + "ORDER BY p.price DESC, p.id DESC")
+    List<ProductResponseDTO> findByPriceDesc(Limit limit);
+
+    @Query(DTO_SELECT +
+            "WHERE p.price <= :price AND (p.price < :price OR p.id < :id) " +
+            "ORDER BY p.price DESC, p.id DESC")
+    List<ProductResponseDTO> findByPriceDescAfter(@Param("price") Double price, @Param("id") Long id, Limit limit);
+}
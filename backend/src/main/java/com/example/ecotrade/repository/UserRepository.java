@@ -1,14 +1,56 @@
 package com.example.ecotrade.repository;
 
+import com.example.ecotrade.dto.UserResponseDTO;
 import com.example.ecotrade.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
+
+    // Proyección de lectura: las filas se convierten directamente en DTO, sin entidades gestionadas
+    String DTO_SELECT = "SELECT new com.example.ecotrade.dto.UserResponseDTO(" +
+            "u.id, u.email, u.displayName, u.avatarUrl, u.createdAt, u.supabaseId) FROM User u ";
+
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query(DTO_SELECT)
+    List<UserResponseDTO> findAllDtos();
+
+    @Query(DTO_SELECT + "WHERE u.id = :id")
+    Optional<UserResponseDTO> findDtoById(@Param("id") UUID id);
+
+    // Bloquea la fila del usuario hasta el final de la transacción. Un alta de producto concurrente espera en la
+    // comprobación de la clave ajena owner_id y después falla, así que los productos leídos a continuación son
+    // exactamente los que se borran
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(DTO_SELECT + "WHERE u.id = :id")
+    Optional<UserResponseDTO> findDtoByIdForUpdate(@Param("id") UUID id);
+
+    @Query(DTO_SELECT + "WHERE u.email = :email")
+    Optional<UserResponseDTO> findDtoByEmail(@Param("email") String email);
+
+    // Alta idempotente en una sola sentencia: devuelve 0 si ya existía un usuario con ese id, email o supabase_id
+    @Modifying
+    @Query(value = "INSERT INTO users (id, email, display_name, supabase_id, created_at) " +
+            "VALUES (:id, :email, :displayName, :supabaseId, :createdAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") UUID id, @Param("email") String email, @Param("displayName") String displayName,
+                       @Param("supabaseId") String supabaseId, @Param("createdAt") LocalDateTime createdAt);
+
+    // Borrado sin cargar la entidad; los productos se borran antes con ProductRepository.deleteByOwnerIdInBulk
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteByIdInBulk(@Param("id") UUID id);
 }
@@ -0,0 +1,314 @@
+package com.example.ecotrade.search;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.CatalogResyncEvent;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import com.example.ecotrade.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre Product.name y Product.description.
+ * Se construye al arrancar, antes de que el servidor web acepte peticiones, y se actualiza de forma
+ * incremental con los ProductChangedEvent. Los cambios que llegan mientras se reconstruye se aplican
+ * también al índice nuevo cuando sustituye al anterior.
+ * Los resultados se ordenan con BM25; las palabras del nombre pesan más que las de la descripción
+ * y la última palabra de la consulta se busca también como prefijo (búsqueda mientras se escribe).
+ */
+@Component
+public class ProductSearchIndex implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_PENALTY = 0.7;
+    private static final int MAX_PREFIX_TERMS = 50;
+    private static final int REBUILD_BATCH_SIZE = 500;
+    // Después de CatalogVersions (que ya sondea los cambios de otras instancias) y antes que el servidor web
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 6144;
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile boolean running;
+
+    // término -> (id de producto -> frecuencia ponderada)
+    private NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // id de producto -> términos y longitud del documento, para poder borrar y normalizar
+    private Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+    // Cambios aplicados durante una reconstrucción (null fuera de ella); el índice nuevo puede haber leído
+    // la fila antes del cambio, así que se vuelven a aplicar sobre él al sustituir al anterior
+    private List<Change> pendingChanges;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            setPendingChanges(new ArrayList<>());
+            NavigableMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+            Map<Long, Document> newDocuments = new HashMap<>();
+            long newTotalLength = 0;
+
+            try {
+                Limit batch = Limit.of(REBUILD_BATCH_SIZE);
+                List<ProductResponseDTO> page = productRepository.findNewest(batch);
+                while (!page.isEmpty()) {
+                    for (ProductResponseDTO product : page) {
+                        Document document = document(product);
+                        newDocuments.put(product.getId(), document);
+                        newTotalLength += document.length();
+                        addPostings(newPostings, product.getId(), document);
+                    }
+                    ProductResponseDTO last = page.get(page.size() - 1);
+                    page = page.size() < REBUILD_BATCH_SIZE
+                            ? List.of()
+                            : productRepository.findNewestAfter(last.getCreatedAt(), last.getId(), batch);
+                }
+            } catch (RuntimeException e) {
+                setPendingChanges(null);
+                throw e;
+            }
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                documents = newDocuments;
+                totalLength = newTotalLength;
+                pendingChanges.forEach(this::applyLocked);
+                replayed = pendingChanges.size();
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de búsqueda construido: {} productos, {} términos, {} cambios durante la construcción",
+                    newDocuments.size(), newPostings.size(), replayed);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void setPendingChanges(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Faltan cambios de otras instancias: se vuelve a leer el catálogo entero
+    @EventListener
+    public void onCatalogResync(CatalogResyncEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.current());
+            case DELETED -> remove(event.productId());
+        }
+    }
+
+    // Tras una importación masiva se reindexan los productos del dueño (index es idempotente);
+    // tras un borrado en bloque basta con quitar los ids borrados, sin consultar
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.isDeletion()) {
+            event.deletedProductIds().forEach(this::remove);
+        } else {
+            productRepository.findDtosByOwnerId(event.ownerId()).forEach(this::index);
+        }
+    }
+
+    public void index(ProductResponseDTO product) {
+        apply(new Change(product.getId(), document(product)));
+    }
+
+    public void remove(Long productId) {
+        apply(new Change(productId, null));
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(change);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(Change change) {
+        removeLocked(change.productId());
+        if (change.document() != null) {
+            documents.put(change.productId(), change.document());
+            totalLength += change.document().length();
+            addPostings(postings, change.productId(), change.document());
+        }
+    }
+
+    /**
+     * Devuelve los ids de los productos que coinciden con la consulta, del más al menos relevante.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                boolean last = i == tokens.size() - 1;
+                // Mejor puntuación de este token por documento (exacta o por prefijo)
+                Map<Long, Double> tokenScores = new HashMap<>();
+                scoreTerm(token, 1.0, documentCount, averageLength, tokenScores);
+                if (last) {
+                    int expanded = 0;
+                    for (String term : postings.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                        if (++expanded > MAX_PREFIX_TERMS) {
+                            break;
+                        }
+                        scoreTerm(term, PREFIX_PENALTY, documentCount, averageLength, tokenScores);
+                    }
+                }
+                tokenScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream()
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scoreTerm(String term, double boost, int documentCount, double averageLength,
+                           Map<Long, Double> tokenScores) {
+        Map<Long, Integer> docs = postings.get(term);
+        if (docs == null) {
+            return;
+        }
+        double idf = Math.log(1 + (documentCount - docs.size() + 0.5) / (docs.size() + 0.5));
+        for (Map.Entry<Long, Integer> posting : docs.entrySet()) {
+            int tf = posting.getValue();
+            int docLength = documents.get(posting.getKey()).length();
+            double norm = tf + K1 * (1 - B + B * docLength / averageLength);
+            double score = boost * idf * tf * (K1 + 1) / norm;
+            tokenScores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private void removeLocked(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        for (String term : document.terms().keySet()) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addPostings(Map<String, Map<Long, Integer>> target, Long productId, Document document) {
+        document.terms().forEach((term, tf) -> target.computeIfAbsent(term, t -> new HashMap<>()).put(productId, tf));
+    }
+
+    private static Document document(ProductResponseDTO product) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : TextNormalizer.tokenize(product.getName())) {
+            terms.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : TextNormalizer.tokenize(product.getDescription())) {
+            terms.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        int length = 0;
+        for (int tf : terms.values()) {
+            length += tf;
+        }
+        return new Document(terms, length);
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record Document(Map<String, Integer> terms, int length) {
+    }
+
+    // document null = producto borrado
+    private record Change(Long productId, Document document) {
+    }
+}
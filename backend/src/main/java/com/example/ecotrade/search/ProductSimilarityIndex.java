@@ -0,0 +1,458 @@
+package com.example.ecotrade.search;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.CatalogResyncEvent;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import com.example.ecotrade.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Productos parecidos por MinHash + LSH sobre las palabras de Product.name y Product.description
+ * (normalizadas como en la búsqueda; las del nombre cuentan dos veces). Se construye al arrancar, antes que
+ * el servidor web, y se actualiza de forma incremental con los mismos eventos que ProductSearchIndex
+ * (también los que llegan durante una reconstrucción, que se repiten sobre la tabla nueva).
+ *
+ * Cada producto tiene una firma de HASHES mínimos que se parte en BANDS bandas de ROWS valores: dos
+ * productos son candidatos si coinciden en alguna banda: con similitud de Jaccard 0,6 el 98 % de las veces,
+ * con 0,25 una de cada cinco y con 0,15 una de cada veinte. Una consulta solo mira las BANDS cubetas del
+ * producto, sin recorrer el catálogo; los candidatos se ordenan por la similitud estimada con la firma.
+ *
+ * Todo se guarda en arrays por hueco (sin un objeto por producto y banda): unos 250 bytes por producto
+ * más su entrada en el mapa de ids. De la firma solo se conserva el byte bajo de cada mínimo, suficiente
+ * para ordenar candidatos.
+ */
+@Component
+public class ProductSimilarityIndex implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSimilarityIndex.class);
+
+    static final int BANDS = 16;
+    static final int ROWS = 3;
+    static final int HASHES = BANDS * ROWS;
+    // Candidatos evaluados como máximo por consulta (cubetas muy pobladas con textos genéricos)
+    private static final int MAX_CANDIDATES = 2000;
+    private static final int SEEN_TABLE_SIZE = 4096;
+    // Por debajo, el candidato ha llegado por una colisión de la clave de banda, no por parecido
+    private static final double MIN_SIMILARITY = 0.05;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int REBUILD_BATCH_SIZE = 500;
+    // Como ProductSearchIndex: después de CatalogVersions y antes que el servidor web
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 6144;
+
+    private static final long[] SEEDS = new SplittableRandom(0x5EED_CAFEL).longs(HASHES).toArray();
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile boolean running;
+    private Table table = new Table(INITIAL_CAPACITY);
+    // Cambios aplicados durante una reconstrucción (null fuera de ella), igual que en ProductSearchIndex
+    private List<Change> pendingChanges;
+
+    @Autowired
+    public ProductSimilarityIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            setPendingChanges(new ArrayList<>());
+            Table newTable = new Table(INITIAL_CAPACITY);
+
+            try {
+                Limit batch = Limit.of(REBUILD_BATCH_SIZE);
+                List<ProductResponseDTO> page = productRepository.findNewest(batch);
+                while (!page.isEmpty()) {
+                    for (ProductResponseDTO product : page) {
+                        int[] signature = signature(product);
+                        if (signature != null) {
+                            newTable.put(product.getId(), signature);
+                        }
+                    }
+                    ProductResponseDTO last = page.get(page.size() - 1);
+                    page = page.size() < REBUILD_BATCH_SIZE
+                            ? List.of()
+                            : productRepository.findNewestAfter(last.getCreatedAt(), last.getId(), batch);
+                }
+            } catch (RuntimeException e) {
+                setPendingChanges(null);
+                throw e;
+            }
+
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                table = newTable;
+                pendingChanges.forEach(this::applyLocked);
+                replayed = pendingChanges.size();
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de productos parecidos construido: {} productos, {} cambios durante la construcción",
+                    newTable.size(), replayed);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void setPendingChanges(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Faltan cambios de otras instancias: se vuelve a leer el catálogo entero
+    @EventListener
+    public void onCatalogResync(CatalogResyncEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> index(event.current());
+            case DELETED -> remove(event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.isDeletion()) {
+            event.deletedProductIds().forEach(this::remove);
+        } else {
+            productRepository.findDtosByOwnerId(event.ownerId()).forEach(this::index);
+        }
+    }
+
+    // La firma se calcula fuera del cerrojo; un producto sin palabras útiles no participa
+    public void index(ProductResponseDTO product) {
+        apply(new Change(product.getId(), signature(product)));
+    }
+
+    public void remove(Long productId) {
+        apply(new Change(productId, null));
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(change);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(Change change) {
+        if (change.signature() == null) {
+            table.remove(change.productId());
+        } else {
+            table.put(change.productId(), change.signature());
+        }
+    }
+
+    /**
+     * Devuelve los ids de hasta limit productos parecidos al indicado, del más al menos parecido.
+     * Lista vacía si el producto no está en el índice.
+     */
+    public List<Long> similar(Long productId, int limit) {
+        lock.readLock().lock();
+        try {
+            return table.similar(productId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Shingles de una palabra; las del nombre entran también con prefijo para que pesen el doble
+    static Set<String> shingles(String name, String description) {
+        Set<String> shingles = new HashSet<>();
+        for (String token : TextNormalizer.tokenize(name)) {
+            shingles.add(token);
+            shingles.add("n:" + token);
+        }
+        shingles.addAll(TextNormalizer.tokenize(description));
+        return shingles;
+    }
+
+    static int[] signature(ProductResponseDTO product) {
+        Set<String> shingles = shingles(product.getName(), product.getDescription());
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long base = mix(shingle.hashCode() * 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < HASHES; i++) {
+                int hash = (int) (mix(base ^ SEEDS[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    // Finalizador de SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = 0; row < ROWS; row++) {
+            key = mix(key * 31 + signature[band * ROWS + row]);
+        }
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Tabla de huecos. Por hueco: id del producto (0 = libre), byte bajo de cada mínimo de la firma y, por
+     * banda, su clave y el siguiente hueco de la misma cubeta. Las cubetas son listas enlazadas por índice
+     * con una cabeza por banda y cubeta. No es segura entre hilos: la protege el cerrojo del índice.
+     */
+    private static final class Table {
+
+        private static final int NONE = -1;
+
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+        private long[] productIds;
+        private byte[] sketches;
+        private int[] bandKeys;
+        private int[] next;
+        private int[][] heads;
+        private int mask;
+        private int used;
+
+        Table(int capacity) {
+            allocate(capacity);
+        }
+
+        int size() {
+            return slots.size();
+        }
+
+        void put(Long productId, int[] signature) {
+            remove(productId);
+            int slot = freeSlots.isEmpty() ? newSlot() : freeSlots.pop();
+            slots.put(productId, slot);
+            productIds[slot] = productId;
+            for (int i = 0; i < HASHES; i++) {
+                sketches[slot * HASHES + i] = (byte) signature[i];
+            }
+            for (int band = 0; band < BANDS; band++) {
+                bandKeys[slot * BANDS + band] = bandKey(signature, band);
+            }
+            link(slot);
+        }
+
+        void remove(Long productId) {
+            Integer boxed = slots.remove(productId);
+            if (boxed == null) {
+                return;
+            }
+            int slot = boxed;
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = bandKeys[slot * BANDS + band] & mask;
+                int previous = NONE;
+                int current = heads[band][bucket];
+                while (current != slot) {
+                    previous = current;
+                    current = next[current * BANDS + band];
+                }
+                int following = next[slot * BANDS + band];
+                if (previous == NONE) {
+                    heads[band][bucket] = following;
+                } else {
+                    next[previous * BANDS + band] = following;
+                }
+            }
+            productIds[slot] = 0;
+            freeSlots.push(slot);
+        }
+
+        List<Long> similar(Long productId, int limit) {
+            Integer boxed = slots.get(productId);
+            if (boxed == null || limit <= 0) {
+                return List.of();
+            }
+            int slot = boxed;
+
+            // Montículo de mínimos con los limit mejores: la raíz es el que sale al entrar uno mejor
+            PriorityQueue<Match> best = new PriorityQueue<>(
+                    Comparator.comparingDouble(Match::similarity).thenComparing(Match::productId, Comparator.reverseOrder()));
+            // Huecos ya evaluados (un candidato suele coincidir en varias bandas), sin cajas de Integer
+            int[] seen = new int[SEEN_TABLE_SIZE];
+            int candidates = 0;
+            scan:
+            for (int band = 0; band < BANDS; band++) {
+                int key = bandKeys[slot * BANDS + band];
+                for (int current = heads[band][key & mask]; current != NONE; current = next[current * BANDS + band]) {
+                    if (current == slot || bandKeys[current * BANDS + band] != key || !markSeen(seen, current)) {
+                        continue;
+                    }
+                    double similarity = estimate(slot, current);
+                    if (similarity >= MIN_SIMILARITY
+                            && (best.size() < limit || similarity >= best.peek().similarity())) {
+                        best.add(new Match(productIds[current], similarity));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                    if (++candidates >= MAX_CANDIDATES) {
+                        break scan;
+                    }
+                }
+            }
+
+            Long[] ranked = new Long[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = best.poll().productId();
+            }
+            return List.of(ranked);
+        }
+
+        // Conjunto abierto de huecos + 1 (0 = vacío); nunca se llena porque guarda como mucho MAX_CANDIDATES
+        private static boolean markSeen(int[] seen, int slot) {
+            int last = seen.length - 1;
+            for (int i = (int) mix(slot) & last; ; i = (i + 1) & last) {
+                if (seen[i] == 0) {
+                    seen[i] = slot + 1;
+                    return true;
+                }
+                if (seen[i] == slot + 1) {
+                    return false;
+                }
+            }
+        }
+
+        // Jaccard estimado con mínimos de un byte: dos mínimos distintos coinciden por azar 1 de cada 256 veces
+        private double estimate(int a, int b) {
+            int matches = 0;
+            int offsetA = a * HASHES;
+            int offsetB = b * HASHES;
+            for (int i = 0; i < HASHES; i++) {
+                if (sketches[offsetA + i] == sketches[offsetB + i]) {
+                    matches++;
+                }
+            }
+            double chance = 1.0 / 256;
+            return Math.max(0, ((double) matches / HASHES - chance) / (1 - chance));
+        }
+
+        private int newSlot() {
+            if (used == productIds.length) {
+                grow();
+            }
+            return used++;
+        }
+
+        private void link(int slot) {
+            for (int band = 0; band < BANDS; band++) {
+                int bucket = bandKeys[slot * BANDS + band] & mask;
+                next[slot * BANDS + band] = heads[band][bucket];
+                heads[band][bucket] = slot;
+            }
+        }
+
+        // Se dobla la capacidad y se vuelven a enlazar los huecos ocupados con el nuevo número de cubetas
+        private void grow() {
+            long[] oldProductIds = productIds;
+            byte[] oldSketches = sketches;
+            int[] oldBandKeys = bandKeys;
+            allocate(oldProductIds.length * 2);
+            System.arraycopy(oldProductIds, 0, productIds, 0, oldProductIds.length);
+            System.arraycopy(oldSketches, 0, sketches, 0, oldSketches.length);
+            System.arraycopy(oldBandKeys, 0, bandKeys, 0, oldBandKeys.length);
+            for (int slot = 0; slot < used; slot++) {
+                if (productIds[slot] != 0) {
+                    link(slot);
+                }
+            }
+        }
+
+        // Una cubeta por hueco en cada banda
+        private void allocate(int capacity) {
+            productIds = new long[capacity];
+            sketches = new byte[capacity * HASHES];
+            bandKeys = new int[capacity * BANDS];
+            next = new int[capacity * BANDS];
+            heads = new int[BANDS][capacity];
+            for (int[] bandHeads : heads) {
+                Arrays.fill(bandHeads, NONE);
+            }
+            mask = capacity - 1;
+        }
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record Match(long productId, double similarity) {
+    }
+
+    // signature null = producto borrado o sin palabras útiles
+    private record Change(Long productId, int[] signature) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ecotrade.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizador para los textos de los anuncios: pasa a minúsculas, quita acentos
+ * ("lámpara" -> "lampara"), descarta palabras vacías y reduce los plurales simples.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "la", "el", "en", "y", "a", "los", "las", "del", "se", "un", "una", "unos", "unas",
+            "con", "por", "para", "al", "lo", "le", "su", "sus", "es", "muy", "mas", "pero", "sin",
+            "o", "que", "como", "este", "esta", "estos", "estas", "ese", "esa", "mi", "tu"
+    );
+
+    private TextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String raw : SEPARATORS.split(fold(text))) {
+            if (raw.isEmpty() || STOPWORDS.contains(raw)) {
+                continue;
+            }
+            if (raw.length() < 2 && !Character.isDigit(raw.charAt(0))) {
+                continue;
+            }
+            tokens.add(stem(raw));
+        }
+        return tokens;
+    }
+
+    // Plurales regulares del español: "sillas" -> "silla", "ordenadores" -> "ordenador"
+    static String stem(String token) {
+        int length = token.length();
+        if (length > 5 && token.endsWith("es") && "rlndz".indexOf(token.charAt(length - 3)) >= 0) {
+            return token.substring(0, length - 2);
+        }
+        if (length > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, length - 1);
+        }
+        return token;
+    }
+}
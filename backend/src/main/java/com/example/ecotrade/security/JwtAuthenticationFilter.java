@@ -1,25 +1,51 @@
 package com.example.ecotrade.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    private static final List<PathPattern> PUBLIC_READ_PATTERNS = Arrays.stream(SecurityConfig.PUBLIC_PRODUCT_READ_ROUTES)
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+
     @Autowired
     private JwtTokenValidator jwtTokenValidator;
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Las lecturas públicas del catálogo no usan la identidad del usuario: no se verifica el token
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return false;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        return PUBLIC_READ_PATTERNS.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -38,10 +64,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extraer el token
             jwt = authHeader.substring(7);
             
-            // Validar y extraer información del token
-            if (jwtTokenValidator.isTokenValid(jwt)) {
-                userEmail = jwtTokenValidator.extractEmail(jwt);
-                String userId = jwtTokenValidator.extractUserId(jwt);
+            // Validar el token una sola vez y extraer información de sus claims
+            Optional<Claims> claims = jwtTokenValidator.verify(jwt);
+            if (claims.isPresent()) {
+                userEmail = claims.get().get("email", String.class);
+                String userId = claims.get().getSubject();
 
                 // Si el token es válido y no hay autenticación previa
                 if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
@@ -60,7 +87,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
             }
         } catch (Exception e) {
-            System.err.println("Error al procesar JWT: " + e.getMessage());
+            log.warn("Error al procesar JWT: {}", e.getMessage());
         }
 
         filterChain.doFilter(request, response);
@@ -1,25 +1,85 @@
 package com.example.ecotrade.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenValidator {
 
-    @Value("${supabase.jwt.secret}")
-    private String jwtSecret;
+    // El parser (con la clave ya construida) es inmutable y thread-safe: se crea una sola vez
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return new SecretKeySpec(keyBytes, "HmacSHA256");
+    // Claims ya verificados, indexados por el SHA-256 del token; cada entrada caduca en el "exp" del token
+    private final Cache<String, Claims> verifiedClaims;
+
+    // Solo mide las verificaciones reales de firma; los aciertos de caché se ven en cache.gets{cache=jwt-claims}
+    private final Timer verificationTimer;
+
+    public JwtTokenValidator(@Value("${supabase.jwt.secret}") String jwtSecret,
+                             @Value("${ecotrade.jwt.cache.max-size:10000}") long cacheMaxSize,
+                             MeterRegistry meterRegistry) {
+        SecretKey signingKey = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedClaims = cacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxSize)
+                        .expireAfter(new ExpireAtTokenExpiration())
+                        .recordStats()
+                        .build()
+                : null;
+        if (verifiedClaims != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt-claims");
+        }
+        this.verificationTimer = Timer.builder("ecotrade.jwt.verification")
+                .description("Verificación de firma y expiración de un JWT")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verifica la firma y la expiración del token una sola vez y devuelve sus claims.
+     * Devuelve vacío si el token no es válido o ya expiró.
+     */
+    public Optional<Claims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        if (verifiedClaims == null) {
+            return parse(token);
+        }
+
+        String key = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Claims> claims = parse(token);
+        // Sin "exp" no se cachea: no sabríamos cuándo invalidar la entrada
+        claims.filter(c -> c.getExpiration() != null)
+                .ifPresent(c -> verifiedClaims.put(key, c));
+        return claims;
     }
 
     public String extractEmail(String token) {
@@ -31,31 +91,50 @@ public class JwtTokenValidator {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return verify(token).map(claimsResolver).orElse(null);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public boolean isTokenValid(String token) {
+        return verify(token).isPresent();
     }
 
-    public boolean isTokenValid(String token) {
+    private Optional<Claims> parse(String token) {
+        return verificationTimer.record(() -> {
+            try {
+                // El parser rechaza firmas inválidas y tokens expirados
+                return Optional.of(parser.parseSignedClaims(token).getPayload());
+            } catch (Exception e) {
+                return Optional.<Claims>empty();
+            }
+        });
+    }
+
+    private static String digest(String token) {
         try {
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
+    private static final class ExpireAtTokenExpiration implements Expiry<String, Claims> {
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
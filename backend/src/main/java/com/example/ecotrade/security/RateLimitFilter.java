@@ -0,0 +1,120 @@
+package com.example.ecotrade.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Limita por usuario (sub del JWT) o, sin token, por IP las rutas que más cuestan a la base de datos:
+ * las escrituras de productos y las búsquedas públicas de usuarios por email. Va en la cadena de
+ * seguridad justo después de JwtAuthenticationFilter, que deja el sub en el atributo userId.
+ * Al superar el límite responde 429 con Retry-After; las respuestas llevan X-RateLimit-Limit y
+ * X-RateLimit-Remaining. Los rechazos se cuentan en ecotrade.ratelimit.rejected (policy).
+ * La IP es getRemoteAddr(): detrás de un proxy hay que activar server.forward-headers-strategy.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final List<PathPattern> WRITE_PATTERNS = patterns("/api/products", "/api/products/**");
+    private static final List<PathPattern> LOOKUP_PATTERNS = patterns("/api/users/exists/{email}", "/api/users/email/{email}");
+
+    private final boolean enabled;
+    private final TokenBucketLimiter writes;
+    private final TokenBucketLimiter lookups;
+    private final Counter writesRejected;
+    private final Counter lookupsRejected;
+
+    public RateLimitFilter(@Value("${ecotrade.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${ecotrade.ratelimit.writes.capacity:30}") long writeCapacity,
+                           @Value("${ecotrade.ratelimit.writes.refill-period:PT2S}") Duration writeRefill,
+                           @Value("${ecotrade.ratelimit.lookups.capacity:20}") long lookupCapacity,
+                           @Value("${ecotrade.ratelimit.lookups.refill-period:PT0.2S}") Duration lookupRefill,
+                           @Value("${ecotrade.ratelimit.max-keys:100000}") long maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.writes = new TokenBucketLimiter(writeCapacity, writeRefill, maxKeys);
+        this.lookups = new TokenBucketLimiter(lookupCapacity, lookupRefill, maxKeys);
+        this.writesRejected = rejected(meterRegistry, "writes");
+        this.lookupsRejected = rejected(meterRegistry, "lookups");
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String policy) {
+        return Counter.builder("ecotrade.ratelimit.rejected")
+                .description("Peticiones rechazadas con 429 por el limitador")
+                .tag("policy", policy)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || limiter(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TokenBucketLimiter limiter = limiter(request);
+        TokenBucketLimiter.Decision decision = limiter.tryAcquire(clientKey(request));
+        response.setHeader("X-RateLimit-Limit", Long.toString(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        (limiter == writes ? writesRejected : lookupsRejected).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("Too many requests, retry in " + decision.retryAfterSeconds() + " s");
+    }
+
+    private TokenBucketLimiter limiter(HttpServletRequest request) {
+        String method = request.getMethod();
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        if (HttpMethod.GET.matches(method)) {
+            return matches(LOOKUP_PATTERNS, path) ? lookups : null;
+        }
+        if (HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method)) {
+            return null;
+        }
+        return matches(WRITE_PATTERNS, path) ? writes : null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Object userId = request.getAttribute("userId");
+        return userId != null ? "user:" + userId : "ip:" + request.getRemoteAddr();
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathPattern> patterns(String... routes) {
+        return Arrays.stream(routes).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+}
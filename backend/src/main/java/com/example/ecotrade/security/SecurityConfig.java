@@ -1,8 +1,10 @@
 package com.example.ecotrade.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -18,30 +20,52 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // Rutas públicas de solo lectura del catálogo (solo GET); el filtro JWT no procesa los GET sobre ellas.
+    // {id} solo admite números: si no, también abriría /export o cualquier otra ruta de un segmento
+    static final String[] PUBLIC_PRODUCT_READ_ROUTES = {
+            "/api/products",
+            "/api/products/search",
+            "/api/products/feed",
+            "/api/products/trending",
+            "/api/products/{id:\\d+}",
+            "/api/products/{id:\\d+}/similar",
+            "/api/products/user/{id}",
+            "/api/products/user/{id}/stats"
+    };
+
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Segunda pasada de las respuestas asíncronas (export, feed): la petición ya se autorizó
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Endpoints públicos (no requieren autenticación)
                         .requestMatchers("/api/users/auth/**").permitAll()
                         .requestMatchers("/api/users/email/**").permitAll()
                         .requestMatchers("/api/users/exists/**").permitAll()
                         .requestMatchers("/api/users/me").permitAll()
-                        .requestMatchers("/api/products").permitAll()
-                        .requestMatchers("/api/products/{id}").permitAll()
-                        .requestMatchers("/api/products/user/{id}").permitAll()
+                        // Exportación completa del catálogo para los procesos nocturnos: siempre con token
+                        .requestMatchers("/api/products/export").authenticated()
+                        .requestMatchers(HttpMethod.GET, PUBLIC_PRODUCT_READ_ROUTES).permitAll()
+                        // Salud y scrape de Prometheus (en producción, en el puerto de management)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         // Todos los demás endpoints requieren autenticación
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Después del JWT para limitar por usuario cuando hay token, y por IP cuando no
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,85 @@
+package com.example.ecotrade.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket por clave (usuario o IP) sin locks. Cada cubo es un único AtomicLong con el "instante
+ * teórico de llegada" (GCRA): equivale a un cubo de capacity fichas que recupera una ficha por cada
+ * refillPeriod, pero se actualiza con un solo compareAndSet y no necesita un hilo que rellene.
+ *
+ * Las claves viven en una caché Caffeine acotada (maxKeys). Una clave sin peticiones durante
+ * capacity * refillPeriod tiene el cubo lleno, así que se puede desalojar sin cambiar ninguna decisión.
+ */
+public class TokenBucketLimiter {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketLimiter(long capacity, Duration refillPeriod, long maxKeys) {
+        this(capacity, refillPeriod, maxKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(long capacity, Duration refillPeriod, long maxKeys, LongSupplier clock) {
+        if (capacity < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("capacity must be >= 1 and refillPeriod > 0");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = refillPeriod.toNanos();
+        this.burstNanos = Math.multiplyExact(capacity, intervalNanos);
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(burstNanos, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    public Decision tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(clock.getAsLong()));
+        while (true) {
+            long now = clock.getAsLong();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                return Decision.rejected(capacity, debt - burstNanos);
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return Decision.allowed(capacity, (burstNanos - debt) / intervalNanos);
+            }
+            // Otra petición de la misma clave ganó el CAS: se recalcula con el valor nuevo
+        }
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+
+    public record Decision(boolean allowed, long limit, long remaining, long retryAfterNanos) {
+
+        static Decision allowed(long limit, long remaining) {
+            return new Decision(true, limit, remaining, 0);
+        }
+
+        static Decision rejected(long limit, long retryAfterNanos) {
+            return new Decision(false, limit, 0, retryAfterNanos);
+        }
+
+        // Retry-After se expresa en segundos enteros: se redondea hacia arriba
+        public long retryAfterSeconds() {
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        }
+    }
+}
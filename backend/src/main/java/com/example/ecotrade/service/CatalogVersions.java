@@ -0,0 +1,330 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.datasource.PrimaryReads;
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.CatalogResyncEvent;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import com.example.ecotrade.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Versiones del catálogo (global y por dueño) usadas como ETag fuertes de los listados públicos.
+ * Permiten responder 304 sin consultar la base de datos ni serializar.
+ * El detalle de un producto usa como ETag su columna version.
+ *
+ * Las versiones salen de la base de datos, compartida por todas las instancias. Cada transacción que cambia
+ * productos sube catalog_version justo antes del commit (el bloqueo de la fila hace que las versiones se
+ * confirmen en orden) y anota el cambio en catalog_changes con esa versión. La instancia que hizo el cambio
+ * sube sus ETag al confirmarse, después de invalidar sus cachés. Las demás leen catalog_changes cada
+ * poll-interval y vuelven a publicar los cambios ajenos como ProductChangedEvent/ProductsBulkChangedEvent,
+ * así sus cachés, índices y feed se actualizan igual que con un cambio propio, y después suben sus ETag.
+ * Una instancia tarda como mucho poll-interval en ver los cambios de otra; un ETag nunca acompaña datos
+ * más viejos que él.
+ */
+@Component
+public class CatalogVersions implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogVersions.class);
+
+    private static final String INIT_SQL = "INSERT INTO catalog_version (id, version) VALUES (1, 0) ON CONFLICT DO NOTHING";
+    private static final String CURRENT_SQL = "SELECT version FROM catalog_version WHERE id = 1";
+    private static final String BUMP_SQL = "UPDATE catalog_version SET version = version + 1 WHERE id = 1";
+    private static final String RECORD_SQL = "INSERT INTO catalog_changes " +
+            "(version, origin, change_type, owner_id, product_id, changed_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String CHANGES_SQL = "SELECT version, origin, change_type, owner_id, product_id " +
+            "FROM catalog_changes WHERE version > ? ORDER BY version, id";
+    private static final String PRUNE_SQL = "DELETE FROM catalog_changes WHERE changed_at < ?";
+    // Antes que los índices y que el servidor web: ningún ETag se sirve sin la versión inicial
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+    // Versión del cambio ajeno que se está volviendo a publicar en este hilo
+    private static final ThreadLocal<Long> REPLAYING = new ThreadLocal<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final String origin = UUID.randomUUID().toString();
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<UUID, Long> ownerVersions = new ConcurrentHashMap<>();
+    // Versión de los dueños sin cambios desde el arranque (o desde la última resincronización)
+    private volatile long baseline;
+    // Último cambio de catalog_changes ya aplicado; solo lo mueve el sondeo
+    private volatile long replayedVersion;
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private volatile ScheduledExecutorService scheduler;
+
+    @Autowired
+    public CatalogVersions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                           @Value("${ecotrade.catalog.poll-interval:PT1S}") Duration pollInterval,
+                           @Value("${ecotrade.catalog.changes-retention:P1D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+    }
+
+    public String catalogETag() {
+        return etag("c", catalogVersion.get());
+    }
+
+    public String ownerETag(UUID ownerId) {
+        return etag("o", ownerVersions.getOrDefault(ownerId, baseline));
+    }
+
+    // Dentro de la transacción del cambio, justo antes del commit. Sin transacción (alta masiva, que confirma
+    // cada bloque por separado) se anota en una propia; por el @Order, después de invalidar las cachés y
+    // antes de que RenderedProductResponses regenere las respuestas, que leen ya el ETag nuevo
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        record(event.ownerId(), event.type().name(), List.of(event.productId()));
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        if (event.isDeletion()) {
+            record(event.ownerId(), "BULK_DELETED", event.deletedProductIds());
+        } else {
+            record(event.ownerId(), "IMPORTED", List.of());
+        }
+    }
+
+    private void record(UUID ownerId, String type, List<Long> productIds) {
+        Long replaying = REPLAYING.get();
+        if (replaying != null) {
+            // Cambio de otra instancia que ya está en catalog_changes: solo suben los ETag
+            advance(ownerId, replaying);
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            long version = insertChange(ownerId, type, productIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.LOWEST_PRECEDENCE - 1;
+                }
+
+                @Override
+                public void afterCommit() {
+                    advance(ownerId, version);
+                }
+            });
+        } else {
+            Long version = transactionTemplate.execute(status -> insertChange(ownerId, type, productIds));
+            advance(ownerId, version);
+        }
+    }
+
+    private long insertChange(UUID ownerId, String type, List<Long> productIds) {
+        if (jdbcTemplate.update(BUMP_SQL) == 0) {
+            jdbcTemplate.update(INIT_SQL);
+            jdbcTemplate.update(BUMP_SQL);
+        }
+        long version = currentVersion();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> rows = productIds.isEmpty() ? Collections.singletonList(null) : productIds;
+        jdbcTemplate.batchUpdate(RECORD_SQL, rows.stream()
+                .map(productId -> new Object[]{version, origin, type, ownerId, productId, now})
+                .toList());
+        return version;
+    }
+
+    private long currentVersion() {
+        Long version = jdbcTemplate.queryForObject(CURRENT_SQL, Long.class);
+        return version == null ? 0 : version;
+    }
+
+    // Los ETag solo avanzan: un cambio ajeno anterior que se aplica después de uno propio no los hace retroceder
+    private void advance(UUID ownerId, long version) {
+        ownerVersions.merge(ownerId, version, Math::max);
+        catalogVersion.accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * Aplica los cambios de otras instancias confirmados desde el sondeo anterior.
+     */
+    void poll() {
+        pollLock.lock();
+        try {
+            PrimaryReads.call(() -> {
+                catchUp();
+                return null;
+            });
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private void catchUp() {
+        long from = replayedVersion;
+        long current = currentVersion();
+        if (current <= from) {
+            return;
+        }
+        List<Change> changes = jdbcTemplate.query(CHANGES_SQL, (rs, rowNum) -> new Change(rs.getLong(1),
+                rs.getString(2), rs.getString(3), rs.getObject(4, UUID.class), rs.getObject(5, Long.class)), from);
+        // Las versiones son consecutivas: si falta la siguiente, la retención la borró antes de leerla
+        if (changes.isEmpty() || changes.get(0).version() != from + 1) {
+            resync(current);
+            return;
+        }
+        int start = 0;
+        while (start < changes.size()) {
+            long version = changes.get(start).version();
+            int end = start;
+            while (end < changes.size() && changes.get(end).version() == version) {
+                end++;
+            }
+            List<Change> group = changes.subList(start, end);
+            // Los propios ya se aplicaron al confirmarse
+            if (!group.get(0).origin().equals(origin)) {
+                replay(version, group);
+            }
+            replayedVersion = version;
+            start = end;
+        }
+    }
+
+    private void replay(long version, List<Change> group) {
+        Change change = group.get(0);
+        REPLAYING.set(version);
+        try {
+            switch (change.type()) {
+                // El estado actual del producto; si ya no existe, su borrado viene en un cambio posterior
+                case "CREATED" -> productRepository.findDtoById(change.productId())
+                        .ifPresent(product -> eventPublisher.publishEvent(ProductChangedEvent.created(product)));
+                case "UPDATED" -> productRepository.findDtoById(change.productId())
+                        .ifPresent(product -> eventPublisher.publishEvent(ProductChangedEvent.updated(product)));
+                case "DELETED" -> eventPublisher.publishEvent(ProductChangedEvent.deleted(
+                        deletedProduct(change.productId(), change.ownerId())));
+                case "IMPORTED" -> eventPublisher.publishEvent(ProductsBulkChangedEvent.imported(change.ownerId()));
+                case "BULK_DELETED" -> eventPublisher.publishEvent(ProductsBulkChangedEvent.deleted(change.ownerId(),
+                        group.stream().map(Change::productId).toList()));
+                default -> log.warn("Tipo de cambio desconocido en catalog_changes: {}", change.type());
+            }
+            advance(change.ownerId(), version);
+        } finally {
+            REPLAYING.remove();
+        }
+    }
+
+    private static ProductResponseDTO deletedProduct(Long productId, UUID ownerId) {
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(productId);
+        product.setOwnerId(ownerId);
+        return product;
+    }
+
+    // Se descarta todo y los ETag pasan a la versión actual: ninguno anterior puede volver a dar 304
+    private void resync(long current) {
+        log.warn("Faltan cambios de otras instancias anteriores a la versión {}: se descartan cachés e índices",
+                current);
+        eventPublisher.publishEvent(new CatalogResyncEvent());
+        baseline = current;
+        ownerVersions.clear();
+        catalogVersion.accumulateAndGet(current, Math::max);
+        replayedVersion = current;
+    }
+
+    private void prune() {
+        Timestamp limit = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int pruned = transactionTemplate.execute(status -> jdbcTemplate.update(PRUNE_SQL, limit));
+        log.debug("Cambios del catálogo borrados por la retención: {}", pruned);
+    }
+
+    private String etag(String scope, long version) {
+        return "\"" + scope + version + "\"";
+    }
+
+    @Override
+    public void start() {
+        long current = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(INIT_SQL);
+            return currentVersion();
+        });
+        baseline = current;
+        replayedVersion = current;
+        catalogVersion.accumulateAndGet(current, Math::max);
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-versions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron leer los cambios del catálogo: {}", e.getMessage());
+            }
+        }, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                prune();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron borrar los cambios antiguos del catálogo: {}", e.getMessage());
+            }
+        }, PRUNE_INTERVAL.toMillis(), PRUNE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private record Change(long version, String origin, String type, UUID ownerId, Long productId) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.datasource.PrimaryReads;
+import com.example.ecotrade.model.OwnerListingStats;
+import com.example.ecotrade.repository.OwnerListingStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprueba periódicamente que owner_listing_stats coincide con los agregados reales de la tabla de
+ * productos y recalcula los dueños que no cuadran (escrituras fuera de la aplicación, filas anteriores
+ * a la tabla de estadísticas, errores). Cada desviación se cuenta en ecotrade.stats.drift y se registra.
+ *
+ * Las dos lecturas se hacen en una transacción REPEATABLE READ sobre el primario: ven el mismo instante,
+ * así que los cambios en curso no aparecen como falsas desviaciones. La primera pasada, poco después del
+ * arranque, rellena las estadísticas de los dueños que aún no tienen fila.
+ */
+@Component
+public class OwnerStatsReconciler implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnerStatsReconciler.class);
+
+    // La suma se mantiene con sumas y restas de double: se admite el error de redondeo por debajo del céntimo
+    private static final double PRICE_SUM_TOLERANCE = 0.005;
+    private static final int MAX_LOGGED_OWNERS = 20;
+
+    private final OwnerListingStatsRepository statsRepository;
+    private final OwnerStatsService ownerStatsService;
+    private final TransactionTemplate snapshotTransaction;
+    private final boolean enabled;
+    private final Duration initialDelay;
+    private final Duration interval;
+    private final Counter drift;
+    private volatile ScheduledExecutorService scheduler;
+
+    @Autowired
+    public OwnerStatsReconciler(OwnerListingStatsRepository statsRepository, OwnerStatsService ownerStatsService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${ecotrade.stats.reconcile.enabled:true}") boolean enabled,
+                                @Value("${ecotrade.stats.reconcile.initial-delay:PT1M}") Duration initialDelay,
+                                @Value("${ecotrade.stats.reconcile.interval:PT1H}") Duration interval,
+                                MeterRegistry meterRegistry) {
+        this.statsRepository = statsRepository;
+        this.ownerStatsService = ownerStatsService;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled;
+        this.initialDelay = initialDelay;
+        this.interval = interval;
+        this.drift = Counter.builder("ecotrade.stats.drift")
+                .description("Dueños cuyas estadísticas no coincidían con sus productos y se han recalculado")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compara y corrige. Devuelve los dueños recalculados.
+     */
+    public Set<UUID> reconcile() {
+        Set<UUID> drifted = PrimaryReads.call(() -> snapshotTransaction.execute(status -> findDrift()));
+        for (UUID ownerId : drifted) {
+            ownerStatsService.refresh(ownerId);
+        }
+        if (!drifted.isEmpty()) {
+            drift.increment(drifted.size());
+            log.warn("Estadísticas de {} dueños desviadas y recalculadas: {}", drifted.size(),
+                    drifted.stream().limit(MAX_LOGGED_OWNERS).toList());
+        }
+        return drifted;
+    }
+
+    private Set<UUID> findDrift() {
+        Map<UUID, OwnerListingStats> stored = new HashMap<>();
+        for (OwnerListingStats stats : statsRepository.findAll()) {
+            stored.put(stats.getOwnerId(), stats);
+        }
+        List<OwnerListingStats> actual = statsRepository.computeAllFromProducts();
+
+        Set<UUID> drifted = new LinkedHashSet<>();
+        for (OwnerListingStats expected : actual) {
+            OwnerListingStats current = stored.remove(expected.getOwnerId());
+            if (current == null || !matches(expected, current)) {
+                drifted.add(expected.getOwnerId());
+            }
+        }
+        // Filas de dueños que ya no tienen productos
+        drifted.addAll(stored.keySet());
+        return drifted;
+    }
+
+    private static boolean matches(OwnerListingStats expected, OwnerListingStats current) {
+        return expected.getListingCount().equals(current.getListingCount())
+                && Math.abs(expected.getPriceSum() - current.getPriceSum()) <= PRICE_SUM_TOLERANCE
+                && expected.getMinPrice().equals(current.getMinPrice())
+                && expected.getMaxPrice().equals(current.getMaxPrice())
+                && Objects.equals(expected.getNewestCreatedAt(), current.getNewestCreatedAt());
+    }
+
+    // Desactivado, la reconciliación solo se ejecuta llamando a reconcile()
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "owner-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron reconciliar las estadísticas de los dueños: {}", e.getMessage());
+            }
+        }, initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.OwnerStatsDTO;
+import com.example.ecotrade.repository.OwnerListingStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Estadísticas de los productos de cada dueño (número, precio mínimo, máximo y medio, fecha del más
+ * reciente) guardadas en owner_listing_stats. ProductService, el alta masiva y el borrado de usuarios
+ * las actualizan en su misma transacción con un UPDATE incremental, así leerlas es una consulta por
+ * clave primaria sin importar cuántos productos tenga el dueño.
+ *
+ * El mínimo y el máximo no se pueden deshacer de forma incremental: cuando un cambio afecta al extremo
+ * (o el dueño aún no tiene fila) se recalcula solo ese dueño desde la tabla de productos.
+ * OwnerStatsReconciler compara periódicamente todas las filas con los productos y corrige las desviaciones.
+ */
+@Service
+@Transactional
+public class OwnerStatsService {
+
+    private final OwnerListingStatsRepository statsRepository;
+
+    @Autowired
+    public OwnerStatsService(OwnerListingStatsRepository statsRepository) {
+        this.statsRepository = statsRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public OwnerStatsDTO getStats(UUID ownerId) {
+        return statsRepository.findById(ownerId)
+                .map(OwnerStatsDTO::new)
+                .orElseGet(() -> OwnerStatsDTO.empty(ownerId));
+    }
+
+    public void listingAdded(UUID ownerId, double price, LocalDateTime createdAt) {
+        listingsAdded(ownerId, 1, price, price, price, createdAt);
+    }
+
+    // Bloque de productos ya insertado en la transacción actual (alta masiva)
+    public void listingsAdded(UUID ownerId, long count, double priceSum, double minPrice, double maxPrice,
+                              LocalDateTime newest) {
+        if (statsRepository.addListings(ownerId, count, priceSum, minPrice, maxPrice, newest) > 0) {
+            return;
+        }
+        // Primer producto del dueño (o fila perdida): se crea desde la tabla, que ya incluye lo insertado.
+        // Si otra transacción la creó a la vez, el INSERT no hace nada y se aplica el incremento sobre la suya
+        if (statsRepository.insertFromProducts(ownerId) == 0) {
+            statsRepository.addListings(ownerId, count, priceSum, minPrice, maxPrice, newest);
+        }
+    }
+
+    public void listingRepriced(UUID ownerId, double oldPrice, double newPrice) {
+        if (oldPrice == newPrice) {
+            return;
+        }
+        if (statsRepository.changePrice(ownerId, oldPrice, newPrice) == 0) {
+            refresh(ownerId);
+        }
+    }
+
+    public void listingRemoved(UUID ownerId, double price, LocalDateTime createdAt) {
+        if (statsRepository.removeListing(ownerId, price, createdAt) == 0) {
+            refresh(ownerId);
+        }
+    }
+
+    public void ownerRemoved(UUID ownerId) {
+        statsRepository.deleteByOwnerIdInBulk(ownerId);
+    }
+
+    // Recalcula la fila de un dueño desde sus productos; sin productos la fila desaparece
+    public void refresh(UUID ownerId) {
+        statsRepository.deleteByOwnerIdInBulk(ownerId);
+        statsRepository.insertFromProducts(ownerId);
+    }
+}
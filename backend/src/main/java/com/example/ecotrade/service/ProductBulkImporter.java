@@ -0,0 +1,376 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.BulkImportResultDTO;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Alta masiva de productos desde un array JSON o un CSV (cabecera name,price,description,useTime).
+ * Las filas se validan una a una y las válidas se insertan con batches JDBC, en transacciones
+ * de chunk-size filas: un error de base de datos solo descarta su propio bloque.
+ * Se usa JDBC directamente porque Product usa GenerationType.IDENTITY, que impide a Hibernate agrupar los INSERT.
+ */
+@Service
+public class ProductBulkImporter {
+
+    private static final String INSERT_SQL = "INSERT INTO Product (name, price, owner_id, created_at, description, use_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OwnerStatsService ownerStats;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader rowReader;
+    private final int chunkSize;
+    private final int maxRows;
+
+    @Autowired
+    public ProductBulkImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               OwnerStatsService ownerStats, ApplicationEventPublisher eventPublisher,
+                               JsonMapper jsonMapper,
+                               @Value("${ecotrade.import.chunk-size:500}") int chunkSize,
+                               @Value("${ecotrade.import.max-rows:10000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ownerStats = ownerStats;
+        this.eventPublisher = eventPublisher;
+        this.rowReader = jsonMapper.readerFor(Map.class);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    public BulkImportResultDTO importJson(UUID ownerId, InputStream json) {
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        requireOwner(ownerId);
+        try (MappingIterator<Map<String, Object>> rows = rowReader.readValues(json)) {
+            importRows(ownerId, new JsonRows(rows, result), result);
+        }
+        return result;
+    }
+
+    public BulkImportResultDTO importCsv(UUID ownerId, Reader csv) {
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        requireOwner(ownerId);
+        importRows(ownerId, new CsvRows(new CsvParser(csv), result), result);
+        return result;
+    }
+
+    public BulkImportResultDTO importRows(UUID ownerId, List<Map<String, Object>> rows) {
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        requireOwner(ownerId);
+        importRows(ownerId, rows.iterator(), result);
+        return result;
+    }
+
+    private void importRows(UUID ownerId, Iterator<Map<String, Object>> rows, BulkImportResultDTO result) {
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        int rowNumber = 0;
+        while (rows.hasNext()) {
+            Map<String, Object> fields = rows.next();
+            rowNumber++;
+            if (fields == null) {
+                // Fila ilegible: el iterador ya registró el error
+                continue;
+            }
+            if (rowNumber > maxRows) {
+                result.getErrors().add(new BulkImportResultDTO.RowError(rowNumber,
+                        "Too many rows: the limit per request is " + maxRows));
+                rowNumber--;
+                break;
+            }
+
+            ImportRow row = validate(rowNumber, fields, result);
+            if (row != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    insertChunk(ownerId, chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        insertChunk(ownerId, chunk, result);
+        result.setReceived(rowNumber);
+
+        if (result.getInserted() > 0) {
+            eventPublisher.publishEvent(ProductsBulkChangedEvent.imported(ownerId));
+        }
+    }
+
+    private void insertChunk(UUID ownerId, List<ImportRow> chunk, BulkImportResultDTO result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        DoubleSummaryStatistics prices = chunk.stream().mapToDouble(ImportRow::price).summaryStatistics();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, row) -> {
+                    ps.setString(1, row.name());
+                    ps.setDouble(2, row.price());
+                    ps.setObject(3, ownerId);
+                    ps.setTimestamp(4, createdAt);
+                    ps.setString(5, row.description());
+                    ps.setString(6, row.useTime());
+                });
+                // Un solo UPDATE de las estadísticas del dueño por bloque, en la misma transacción
+                ownerStats.listingsAdded(ownerId, prices.getCount(), prices.getSum(), prices.getMin(),
+                        prices.getMax(), now);
+            });
+            result.setInserted(result.getInserted() + chunk.size());
+        } catch (DataAccessException e) {
+            int first = chunk.get(0).rowNumber();
+            int last = chunk.get(chunk.size() - 1).rowNumber();
+            result.getErrors().add(new BulkImportResultDTO.RowError(first,
+                    "Rows " + first + "-" + last + " were not inserted: " + e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private void requireOwner(UUID ownerId) {
+        Integer owners = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, ownerId);
+        if (owners == null || owners == 0) {
+            throw new RuntimeException("User not found with id: " + ownerId);
+        }
+    }
+
+    private static ImportRow validate(int rowNumber, Map<String, Object> fields, BulkImportResultDTO result) {
+        List<String> problems = new ArrayList<>();
+
+        String name = text(fields.get("name"));
+        if (name == null || name.isBlank()) {
+            problems.add("name is required");
+        } else if (name.length() > MAX_TEXT_LENGTH) {
+            problems.add("name is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+
+        Double price = null;
+        Object rawPrice = fields.get("price");
+        if (rawPrice instanceof Number number) {
+            price = number.doubleValue();
+        } else if (rawPrice instanceof String value && !value.isBlank()) {
+            try {
+                price = Double.valueOf(value.trim());
+            } catch (NumberFormatException e) {
+                problems.add("price is not a number: " + value);
+            }
+        }
+        if (price == null && problems.stream().noneMatch(p -> p.startsWith("price"))) {
+            problems.add("price is required");
+        } else if (price != null && (price.isNaN() || price.isInfinite() || price < 0)) {
+            problems.add("price must be a non-negative number");
+        }
+
+        String useTime = text(fields.containsKey("useTime") ? fields.get("useTime") : fields.get("use_time"));
+        if (useTime != null && useTime.length() > MAX_TEXT_LENGTH) {
+            problems.add("useTime is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+
+        if (!problems.isEmpty()) {
+            result.getErrors().add(new BulkImportResultDTO.RowError(rowNumber, String.join("; ", problems)));
+            return null;
+        }
+        return new ImportRow(rowNumber, name.trim(), price, text(fields.get("description")), useTime);
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private record ImportRow(int rowNumber, String name, Double price, String description, String useTime) {
+    }
+
+    // Elementos del array JSON; un elemento mal formado detiene la lectura (el resto del documento no es fiable)
+    private static final class JsonRows implements Iterator<Map<String, Object>> {
+        private final MappingIterator<Map<String, Object>> rows;
+        private final BulkImportResultDTO result;
+        private boolean failed;
+        private int read;
+
+        JsonRows(MappingIterator<Map<String, Object>> rows, BulkImportResultDTO result) {
+            this.rows = rows;
+            this.result = result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failed) {
+                return false;
+            }
+            try {
+                return rows.hasNextValue();
+            } catch (JacksonException e) {
+                fail(read + 1, e);
+                return false;
+            }
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            read++;
+            try {
+                return rows.nextValue();
+            } catch (JacksonException e) {
+                fail(read, e);
+                return null;
+            }
+        }
+
+        private void fail(int row, JacksonException e) {
+            failed = true;
+            result.getErrors().add(new BulkImportResultDTO.RowError(row, "Malformed JSON: " + e.getOriginalMessage()));
+        }
+    }
+
+    // Registros del CSV convertidos a mapas usando la cabecera
+    private static final class CsvRows implements Iterator<Map<String, Object>> {
+        private final CsvParser parser;
+        private final BulkImportResultDTO result;
+        private List<String> header;
+        private List<String> nextRecord;
+        private int read;
+
+        CsvRows(CsvParser parser, BulkImportResultDTO result) {
+            this.parser = parser;
+            this.result = result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRecord != null) {
+                return true;
+            }
+            try {
+                if (header == null) {
+                    header = parser.next();
+                    if (header == null) {
+                        return false;
+                    }
+                    header = header.stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+                }
+                nextRecord = parser.next();
+                return nextRecord != null;
+            } catch (IOException e) {
+                result.getErrors().add(new BulkImportResultDTO.RowError(read + 1, "Unreadable CSV: " + e.getMessage()));
+                return false;
+            }
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            read++;
+            List<String> record = nextRecord;
+            nextRecord = null;
+            Map<String, Object> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                String column = switch (header.get(i)) {
+                    case "usetime", "use_time" -> "useTime";
+                    default -> header.get(i);
+                };
+                fields.put(column, record.get(i).isEmpty() ? null : record.get(i));
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * Lector CSV mínimo (RFC 4180): separador coma, campos entre comillas con comas,
+     * saltos de línea y comillas dobles escapadas ("").
+     */
+    static final class CsvParser {
+        private final Reader reader;
+        private int pending = -2;
+
+        CsvParser(Reader reader) {
+            this.reader = reader;
+        }
+
+        List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            unread(following);
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int following = read();
+                        if (following != '\n') {
+                            unread(following);
+                        }
+                    }
+                    if (fields.isEmpty() && field.isEmpty()) {
+                        // Línea vacía
+                        any = false;
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private void unread(int c) {
+            pending = c;
+        }
+    }
+}
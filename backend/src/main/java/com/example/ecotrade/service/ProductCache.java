@@ -0,0 +1,122 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.CatalogResyncEvent;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché de lectura delante de ProductRepository para el detalle de producto y las listas por dueño.
+ * Las entradas se invalidan exactamente (id y dueño afectados) cuando se confirma un ProductChangedEvent.
+ * Las métricas de aciertos, fallos y desalojos se publican como cache.* con las etiquetas
+ * cache=products y cache=owner-products.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, ProductResponseDTO> products;
+    private final Cache<UUID, List<ProductResponseDTO>> ownerProducts;
+    // Se incrementa antes de cada invalidación; ver putIfNotInvalidated
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCache(@Value("${ecotrade.cache.products.max-size:10000}") long productsMaxSize,
+                        @Value("${ecotrade.cache.owner-products.max-size:2000}") long ownerProductsMaxSize,
+                        @Value("${ecotrade.cache.products.ttl:PT10M}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(productsMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.ownerProducts = Caffeine.newBuilder()
+                .maximumSize(ownerProductsMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+        CaffeineCacheMetrics.monitor(meterRegistry, ownerProducts, "owner-products");
+    }
+
+    public Optional<ProductResponseDTO> getProduct(Long id, Function<Long, Optional<ProductResponseDTO>> loader) {
+        ProductResponseDTO cached = products.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Los productos inexistentes no se cachean
+        long stamp = invalidations.get();
+        Optional<ProductResponseDTO> loaded = loader.apply(id);
+        loaded.ifPresent(product -> putIfNotInvalidated(products, id, product, stamp));
+        return loaded;
+    }
+
+    public List<ProductResponseDTO> getOwnerProducts(UUID ownerId, Function<UUID, List<ProductResponseDTO>> loader) {
+        List<ProductResponseDTO> cached = ownerProducts.getIfPresent(ownerId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = invalidations.get();
+        List<ProductResponseDTO> loaded = List.copyOf(loader.apply(ownerId));
+        putIfNotInvalidated(ownerProducts, ownerId, loaded, stamp);
+        return loaded;
+    }
+
+    /*
+     * La consulta se hace fuera de Cache.get(key, loader): Caffeine ejecuta el loader dentro de
+     * ConcurrentHashMap.compute, que bloquea con synchronized y en Java 21 fijaría el hilo virtual
+     * a su carrier durante todo el viaje a la base de datos. A cambio, una invalidación ocurrida
+     * durante la carga debe descartar el valor cargado, que puede ser anterior a ella.
+     */
+    private <K, V> void putIfNotInvalidated(Cache<K, V> cache, K key, V value, long stamp) {
+        cache.put(key, value);
+        if (invalidations.get() != stamp) {
+            cache.invalidate(key);
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.productId(), event.ownerId());
+    }
+
+    // Una importación masiva solo crea productos: basta con invalidar la lista del dueño.
+    // En un borrado en bloque se invalidan además los detalles de los productos borrados
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        invalidations.incrementAndGet();
+        products.invalidateAll(event.deletedProductIds());
+        ownerProducts.invalidate(event.ownerId());
+    }
+
+    // Cambios de otras instancias que ya no se pueden leer: no se sabe qué entradas son viejas
+    @EventListener
+    public void onCatalogResync(CatalogResyncEvent event) {
+        invalidations.incrementAndGet();
+        products.invalidateAll();
+        ownerProducts.invalidateAll();
+    }
+
+    public void evict(Long productId, UUID ownerId) {
+        invalidations.incrementAndGet();
+        products.invalidate(productId);
+        ownerProducts.invalidate(ownerId);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ecotrade.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para la paginación por keyset: guarda el orden, el valor de la
+ * clave de orden y el id del último elemento devuelto.
+ */
+public record ProductCursor(ProductSort sort, String key, Long id) {
+
+    public static ProductCursor of(ProductSort sort, LocalDateTime createdAt, Long id) {
+        return new ProductCursor(sort, createdAt.toString(), id);
+    }
+
+    public static ProductCursor of(ProductSort sort, Double price, Long id) {
+        return new ProductCursor(sort, price.toString(), id);
+    }
+
+    public LocalDateTime createdAt() {
+        return LocalDateTime.parse(key);
+    }
+
+    public Double price() {
+        return Double.valueOf(key);
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, ProductSort expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ProductSort sort = ProductSort.valueOf(parts[0]);
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor does not match sort " + expectedSort);
+            }
+            ProductCursor decoded = new ProductCursor(sort, parts[1], Long.valueOf(parts[2]));
+            // Validar la clave según el orden antes de llegar a la consulta
+            if (sort == ProductSort.NEWEST) {
+                decoded.createdAt();
+            } else {
+                decoded.price();
+            }
+            return decoded;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
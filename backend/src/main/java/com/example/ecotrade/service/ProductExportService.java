@@ -0,0 +1,50 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación del catálogo completo en NDJSON (un producto por línea) para los feeds nocturnos.
+ * Las filas se leen con un cursor y se escriben una a una: la memoria usada no depende del tamaño del catálogo.
+ */
+@Service
+public class ProductExportService {
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final ProductRepository productRepository;
+    private final ObjectWriter productWriter;
+
+    @Autowired
+    public ProductExportService(ProductRepository productRepository, JsonMapper jsonMapper) {
+        this.productRepository = productRepository;
+        this.productWriter = jsonMapper.writerFor(ProductResponseDTO.class);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCatalog(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<ProductResponseDTO> products = productRepository.streamAll()) {
+            Iterator<ProductResponseDTO> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                out.write(productWriter.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        return count;
+    }
+}
@@ -1,14 +1,27 @@
 package com.example.ecotrade.service;
 
+import com.example.ecotrade.dto.ProductPageDTO;
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.ProductChangedEvent;
 import com.example.ecotrade.model.Product;
 import com.example.ecotrade.model.User;
 import com.example.ecotrade.repository.ProductRepository;
 import com.example.ecotrade.repository.UserRepository;
+import com.example.ecotrade.search.ProductSearchIndex;
+import com.example.ecotrade.search.ProductSimilarityIndex;
+import com.example.ecotrade.trending.TrendingProducts;
+import com.example.ecotrade.trending.TrendingWindow;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,47 +29,171 @@ import java.util.UUID;
 @Transactional
 public class ProductService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    // Reintentos de una modificación sin versión esperada que choca con otra concurrente
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSimilarityIndex similarityIndex;
+    private final ProductCache productCache;
+    private final OwnerStatsService ownerStats;
+    private final ProductViewCounter productViews;
+    private final TrendingProducts trendingProducts;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProductService(ProductRepository productRepository, UserRepository userRepository) {
+    public ProductService(ProductRepository productRepository, UserRepository userRepository,
+                          ProductSearchIndex searchIndex, ProductSimilarityIndex similarityIndex,
+                          ProductCache productCache, OwnerStatsService ownerStats,
+                          ProductViewCounter productViews, TrendingProducts trendingProducts,
+                          ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.searchIndex = searchIndex;
+        this.similarityIndex = similarityIndex;
+        this.productCache = productCache;
+        this.ownerStats = ownerStats;
+        this.productViews = productViews;
+        this.trendingProducts = trendingProducts;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    @Transactional(readOnly = true)
+    public ProductPageDTO getProductPage(ProductSort sort, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor, sort);
+        // Se pide un elemento extra para saber si hay una página siguiente
+        Limit fetch = Limit.of(pageSize + 1);
+
+        List<ProductResponseDTO> items = switch (sort) {
+            case NEWEST -> after == null
+                    ? productRepository.findNewest(fetch)
+                    : productRepository.findNewestAfter(after.createdAt(), after.id(), fetch);
+            case PRICE_ASC -> after == null
+                    ? productRepository.findByPriceAsc(fetch)
+                    : productRepository.findByPriceAscAfter(after.price(), after.id(), fetch);
+            case PRICE_DESC -> after == null
+                    ? productRepository.findByPriceDesc(fetch)
+                    : productRepository.findByPriceDescAfter(after.price(), after.id(), fetch);
+        };
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            ProductResponseDTO last = items.get(items.size() - 1);
+            nextCursor = (sort == ProductSort.NEWEST
+                    ? ProductCursor.of(sort, last.getCreatedAt(), last.getId())
+                    : ProductCursor.of(sort, last.getPrice(), last.getId())).encode();
+        }
+
+        return new ProductPageDTO(items, nextCursor, hasMore);
     }
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    // Lecturas cacheadas: SUPPORTS evita abrir una transacción (y tomar una conexión) en cada acierto.
+    // La visita se cuenta en memoria (ProductViewCounter la escribe después en lote) y alimenta las tendencias
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<ProductResponseDTO> getProductById(Long id) {
+        Optional<ProductResponseDTO> product = productCache.getProduct(id, productRepository::findDtoById);
+        product.ifPresent(found -> {
+            productViews.recordView(id);
+            trendingProducts.recordView(id);
+        });
+        return product;
     }
 
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductResponseDTO> getProductsByUserId(UUID userId) {
+        return productCache.getOwnerProducts(userId, productRepository::findDtosByOwnerId);
     }
 
-    public List<Product> getProductsByUserId(UUID userId) {
-        return productRepository.findByOwnerId(userId);
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> searchProducts(String query, Integer limit) {
+        int size = pageSize(limit);
+        return findRanked(searchIndex.search(query, size));
+    }
+
+    // Productos parecidos para la ficha de un producto; vacío si no existe o no tiene texto indexable
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> getSimilarProducts(Long id, Integer limit) {
+        return findRanked(similarityIndex.similar(id, pageSize(limit)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> getTrendingProducts(TrendingWindow window, Integer limit) {
+        return findRanked(trendingProducts.trending(window, pageSize(limit)));
+    }
+
+    // Una sola consulta para los resultados; se respeta el orden del índice
+    private List<ProductResponseDTO> findRanked(List<Long> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.put(rankedIds.get(i), i);
+        }
+        return productRepository.findDtosByIdIn(rankedIds).stream()
+                .sorted(Comparator.comparing(product -> rank.get(product.getId())))
+                .toList();
     }
 
     public Product createProduct(Product product, UUID userId) {
         product.setOwnerId(userId);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        ownerStats.listingAdded(userId, saved.getPrice(), saved.getCreatedAt());
+        eventPublisher.publishEvent(ProductChangedEvent.created(new ProductResponseDTO(saved)));
+        return saved;
     }
 
-    public Product updateProduct(Long id, Product productDetails) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-
-        product.setName(productDetails.getName());
-        product.setPrice(productDetails.getPrice());
-        product.setDescription(productDetails.getDescription());
-        product.setUseTime(productDetails.getUseTime());
+    // Se lee la proyección y se aplica un UPDATE condicionado a la versión leída, sin bloquear la fila:
+    // si el UPDATE afecta a la fila, lo leído es exactamente el estado anterior (precio para las
+    // estadísticas del dueño) y la respuesta se construye sin volver a consultar.
+    // expectedVersion null = sin control de concurrencia (clientes que no envían versión): si otra
+    // modificación se cuela entre la lectura y el UPDATE se reintenta, y gana la última
+    public ProductResponseDTO updateProduct(Long id, Product productDetails, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            ProductResponseDTO previous = productRepository.findDtoById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            if (expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                throw new ProductVersionConflictException(id, expectedVersion, previous.getVersion());
+            }
 
-        return productRepository.save(product);
+            int updated = productRepository.updateIfVersion(id, previous.getVersion(), productDetails.getName(),
+                    productDetails.getPrice(), productDetails.getDescription(), productDetails.getUseTime());
+            if (updated == 1) {
+                ownerStats.listingRepriced(previous.getOwnerId(), previous.getPrice(), productDetails.getPrice());
+                ProductResponseDTO current = new ProductResponseDTO(id, productDetails.getName(),
+                        productDetails.getPrice(), previous.getOwnerId(), previous.getCreatedAt(),
+                        productDetails.getDescription(), productDetails.getUseTime(), previous.getUserName(),
+                        previous.getVersion() + 1);
+                eventPublisher.publishEvent(ProductChangedEvent.updated(current));
+                return current;
+            }
+            if (expectedVersion != null || attempt == MAX_UPDATE_ATTEMPTS) {
+                Long currentVersion = productRepository.findVersionById(id)
+                        .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                throw new ProductVersionConflictException(id, previous.getVersion(), currentVersion);
+            }
+        }
     }
 
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        ProductResponseDTO previous = new ProductResponseDTO(product);
         productRepository.delete(product);
+        ownerStats.listingRemoved(product.getOwnerId(), product.getPrice(), product.getCreatedAt());
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(previous));
     }
 }
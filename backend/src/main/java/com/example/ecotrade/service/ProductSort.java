@@ -0,0 +1,24 @@
+package com.example.ecotrade.service;
+
+import java.util.Locale;
+
+/**
+ * Órdenes disponibles para el catálogo paginado por cursor.
+ * Cada orden tiene un índice compuesto (clave de orden + id) en la tabla Product.
+ */
+public enum ProductSort {
+    NEWEST,
+    PRICE_ASC,
+    PRICE_DESC;
+
+    public static ProductSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NEWEST;
+        }
+        try {
+            return ProductSort.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.ecotrade.service;
+
+/**
+ * La versión enviada por el cliente ya no es la del producto: otra modificación se aplicó antes.
+ */
+public class ProductVersionConflictException extends RuntimeException {
+
+    private final Long currentVersion;
+
+    public ProductVersionConflictException(Long id, Long expectedVersion, Long currentVersion) {
+        super("Product " + id + " was modified concurrently (expected version " + expectedVersion
+                + ", current version " + currentVersion + ")");
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
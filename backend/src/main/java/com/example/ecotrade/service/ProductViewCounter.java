@@ -0,0 +1,263 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Visitas de la ficha de cada producto (product_views), contadas en memoria y escritas en segundo plano.
+ * recordView no toca la base de datos: suma en un LongAdder por producto (celdas repartidas entre hilos,
+ * sin bloqueos), así el detalle de un producto sigue siendo una lectura de caché.
+ *
+ * Cada flush-interval se vacían los contadores con sumThenReset (una visita concurrente queda para el
+ * siguiente vaciado, no se pierde) y se suman a la tabla con UPDATE en batch de batch-size filas; los
+ * productos sin fila se insertan desde product, que descarta los borrados. Si la escritura falla, las
+ * visitas vuelven a los contadores. Al parar la aplicación se hace un último vaciado después de cerrar el
+ * servidor web; ante una caída se pierden como mucho las visitas de un intervalo.
+ */
+@Component
+public class ProductViewCounter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductViewCounter.class);
+
+    private static final String UPDATE_SQL = "UPDATE product_views SET views = views + ? WHERE product_id = ?";
+    // Si otra instancia crea la fila a la vez no se inserta nada y se repite el UPDATE
+    private static final String INSERT_SQL = "INSERT INTO product_views (product_id, views) " +
+            "SELECT id, CAST(? AS BIGINT) FROM product WHERE id = ? ON CONFLICT DO NOTHING";
+    private static final String DELETE_SQL = "DELETE FROM product_views WHERE product_id = ?";
+    // Por debajo del servidor web (Spring Boot lo para en DEFAULT_PHASE - 2048): se para después que él
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Counter flushed;
+    private final Counter failures;
+
+    private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+    private final Queue<Long> deletedProducts = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Contadores sin visitas retirados del mapa en el vaciado anterior: se vacían una vez más por si
+    // un recordView que ya los tenía sumó después de retirarlos
+    private List<Map.Entry<Long, LongAdder>> retired = new ArrayList<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    @Autowired
+    public ProductViewCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              @Value("${ecotrade.views.flush-interval:PT10S}") Duration flushInterval,
+                              @Value("${ecotrade.views.batch-size:500}") int batchSize,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.flushed = Counter.builder("ecotrade.views.flushed")
+                .description("Visitas de productos escritas en product_views")
+                .register(meterRegistry);
+        this.failures = Counter.builder("ecotrade.views.flush.failures")
+                .description("Vaciados de visitas que fallaron y se reintentarán")
+                .register(meterRegistry);
+    }
+
+    public void recordView(Long productId) {
+        LongAdder views = counts.get(productId);
+        if (views == null) {
+            views = counts.computeIfAbsent(productId, id -> new LongAdder());
+        }
+        views.increment();
+    }
+
+    // Las visitas pendientes de un producto borrado se descartan y su fila se borra en el siguiente vaciado
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.ChangeType.DELETED) {
+            productDeleted(event.productId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        event.deletedProductIds().forEach(this::productDeleted);
+    }
+
+    private void productDeleted(Long productId) {
+        counts.remove(productId);
+        deletedProducts.add(productId);
+    }
+
+    /**
+     * Escribe las visitas acumuladas desde el vaciado anterior. Devuelve las visitas escritas.
+     */
+    public long flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> pending = new HashMap<>();
+            for (Map.Entry<Long, LongAdder> entry : retired) {
+                long views = entry.getValue().sumThenReset();
+                if (views > 0) {
+                    pending.merge(entry.getKey(), views, Long::sum);
+                }
+            }
+            retired = new ArrayList<>();
+            for (Map.Entry<Long, LongAdder> entry : counts.entrySet()) {
+                long views = entry.getValue().sumThenReset();
+                if (views > 0) {
+                    pending.merge(entry.getKey(), views, Long::sum);
+                } else if (counts.remove(entry.getKey(), entry.getValue())) {
+                    // Un intervalo entero sin visitas: el contador sale del mapa para no crecer sin límite
+                    retired.add(entry);
+                }
+            }
+
+            Set<Long> deleted = new HashSet<>();
+            for (Long productId = deletedProducts.poll(); productId != null; productId = deletedProducts.poll()) {
+                deleted.add(productId);
+            }
+            pending.keySet().removeAll(deleted);
+
+            return write(new ArrayList<>(pending.entrySet()), new ArrayList<>(deleted));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private long write(List<Map.Entry<Long, Long>> pending, List<Long> deleted) {
+        long written = 0;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Map.Entry<Long, Long>> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+                written += batch.stream().mapToLong(Map.Entry::getValue).sum();
+            } catch (RuntimeException e) {
+                // Base de datos caída, pool agotado (CannotCreateTransactionException) o error de SQL:
+                // las visitas no escritas vuelven a los contadores para el siguiente intento
+                pending.subList(from, pending.size())
+                        .forEach(entry -> counts.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(entry.getValue()));
+                deleted.forEach(deletedProducts::add);
+                failures.increment();
+                log.warn("No se pudieron escribir las visitas de {} productos: {}", pending.size() - from,
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                flushed.increment(written);
+                return written;
+            }
+        }
+        flushed.increment(written);
+
+        if (!deleted.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(DELETE_SQL, deleted, batchSize, (ps, productId) -> ps.setLong(1, productId)));
+            } catch (RuntimeException e) {
+                deleted.forEach(deletedProducts::add);
+                failures.increment();
+                log.warn("No se pudieron borrar las visitas de {} productos: {}", deleted.size(),
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        }
+        return written;
+    }
+
+    // UPDATE de todo el lote; INSERT para los que no tenían fila; UPDATE otra vez para los que otra
+    // instancia insertó entre medias (los de productos ya borrados no afectan a ninguna fila y se descartan)
+    private void writeBatch(List<Map.Entry<Long, Long>> batch) {
+        List<Map.Entry<Long, Long>> missing = unchanged(batch, update(UPDATE_SQL, batch));
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> conflicting = unchanged(missing, update(INSERT_SQL, missing));
+        if (!conflicting.isEmpty()) {
+            update(UPDATE_SQL, conflicting);
+        }
+    }
+
+    private int[] update(String sql, List<Map.Entry<Long, Long>> batch) {
+        return jdbcTemplate.batchUpdate(sql, batch.stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList());
+    }
+
+    private static List<Map.Entry<Long, Long>> unchanged(List<Map.Entry<Long, Long>> batch, int[] updated) {
+        List<Map.Entry<Long, Long>> unchanged = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (updated[i] == 0) {
+                unchanged.add(batch.get(i));
+            }
+        }
+        return unchanged;
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-view-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron escribir las visitas de los productos: {}", e.getMessage());
+            }
+        }, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    // Parada ordenada: se espera al vaciado en curso y se hace el último
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long written = flush();
+        log.info("Visitas escritas al parar: {}", written);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
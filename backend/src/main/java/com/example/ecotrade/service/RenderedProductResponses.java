@@ -0,0 +1,228 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.datasource.PrimaryReads;
+import com.example.ecotrade.event.CatalogResyncEvent;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuestas JSON ya serializadas (y comprimidas con gzip) de las páginas del catálogo y de las listas
+ * por dueño. El controlador escribe estos bytes tal cual: Jackson solo trabaja cuando cambian los datos.
+ * Cada entrada guarda el ETag leído antes de la consulta, así los bytes nunca van con un ETag más nuevo.
+ *
+ * Un cambio de producto invalida las páginas del catálogo y la lista del dueño afectado. Las que estaban
+ * en caché y son de acceso directo (primera página de cada orden, listas por dueño) se regeneran en
+ * segundo plano, de modo que las peticiones siguientes no pagan la consulta ni la serialización.
+ */
+@Component
+public class RenderedProductResponses {
+
+    private static final Logger log = LoggerFactory.getLogger(RenderedProductResponses.class);
+
+    private final ProductService productService;
+    private final CatalogVersions catalogVersions;
+    private final JsonMapper jsonMapper;
+    private final Executor executor;
+    private final boolean warmAfterChange;
+    private final Cache<Key, RenderedResponse> responses;
+    // Se incrementa antes de cada invalidación; mismo mecanismo que ProductCache.putIfNotInvalidated
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Set<Key> pendingWarmUp = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean warmUpScheduled = new AtomicBoolean();
+
+    @Autowired
+    public RenderedProductResponses(ProductService productService, CatalogVersions catalogVersions,
+                                    JsonMapper jsonMapper,
+                                    @Qualifier("applicationTaskExecutor") Executor executor,
+                                    @Value("${ecotrade.cache.rendered.max-size:32MB}") DataSize maxSize,
+                                    @Value("${ecotrade.cache.products.ttl:PT10M}") Duration ttl,
+                                    @Value("${ecotrade.cache.rendered.warm-after-change:true}") boolean warmAfterChange,
+                                    MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.catalogVersions = catalogVersions;
+        this.jsonMapper = jsonMapper;
+        this.executor = executor;
+        this.warmAfterChange = warmAfterChange;
+        // El límite es en bytes (JSON + gzip), no en número de entradas: una página de 100 productos
+        // ocupa mucho más que la lista de un dueño con dos
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, RenderedResponse response) -> response.json().length + response.gzip().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "rendered-products");
+    }
+
+    public RenderedResponse catalogPage(ProductSort sort, String cursor, Integer limit) {
+        String normalizedCursor = cursor == null || cursor.isBlank() ? null : cursor;
+        return get(new CatalogKey(sort, normalizedCursor, ProductService.pageSize(limit)));
+    }
+
+    public RenderedResponse ownerProducts(UUID ownerId) {
+        return get(new OwnerKey(ownerId));
+    }
+
+    private RenderedResponse get(Key key) {
+        RenderedResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Fuera de Cache.get(key, loader) por el mismo motivo que en ProductCache (hilos virtuales)
+        long stamp = invalidations.get();
+        RenderedResponse rendered = render(key);
+        responses.put(key, rendered);
+        if (invalidations.get() != stamp) {
+            responses.invalidate(key);
+        }
+        return rendered;
+    }
+
+    // Se lee del primario: con réplicas, una página atrasada quedaría en caché hasta el siguiente cambio
+    private RenderedResponse render(Key key) {
+        return PrimaryReads.call(() -> switch (key) {
+            case CatalogKey page -> {
+                String etag = catalogVersions.catalogETag();
+                yield render(etag, productService.getProductPage(page.sort(), page.cursor(), page.limit()));
+            }
+            case OwnerKey owner -> {
+                String etag = catalogVersions.ownerETag(owner.ownerId());
+                yield render(etag, productService.getProductsByUserId(owner.ownerId()));
+            }
+        });
+    }
+
+    private RenderedResponse render(String etag, Object body) {
+        byte[] json = jsonMapper.writeValueAsBytes(body);
+        return new RenderedResponse(etag, json, gzip(json));
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Invalidación antes que CatalogVersions cambie los ETag (igual que ProductCache)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.ownerId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        invalidate(event.ownerId());
+    }
+
+    // Sin regeneración: se vuelven a generar con la siguiente petición, ya con el ETag nuevo
+    @EventListener
+    public void onCatalogResync(CatalogResyncEvent event) {
+        invalidations.incrementAndGet();
+        responses.invalidateAll();
+    }
+
+    // Regeneración después de CatalogVersions: las entradas nuevas llevan ya el ETag nuevo
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChangedWarmUp(ProductChangedEvent event) {
+        scheduleWarmUp();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChangedWarmUp(ProductsBulkChangedEvent event) {
+        scheduleWarmUp();
+    }
+
+    private void invalidate(UUID ownerId) {
+        invalidations.incrementAndGet();
+        // Cualquier cambio puede mover productos entre páginas del catálogo; de las listas por dueño solo la suya
+        responses.asMap().keySet().removeIf(key -> {
+            boolean affected = switch (key) {
+                case CatalogKey page -> true;
+                case OwnerKey owner -> owner.ownerId().equals(ownerId);
+            };
+            if (affected && warmAfterChange && key.isEntryPoint()) {
+                pendingWarmUp.add(key);
+            }
+            return affected;
+        });
+    }
+
+    // Varios cambios seguidos se agrupan en una sola regeneración
+    private void scheduleWarmUp() {
+        if (pendingWarmUp.isEmpty() || !warmUpScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            warmUpScheduled.set(false);
+            for (Key key : pendingWarmUp) {
+                pendingWarmUp.remove(key);
+                try {
+                    get(key);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo regenerar la respuesta {}: {}", key, e.getMessage());
+                }
+            }
+        });
+    }
+
+    public record RenderedResponse(String etag, byte[] json, byte[] gzip) {
+    }
+
+    private sealed interface Key permits CatalogKey, OwnerKey {
+
+        // Claves a las que se llega sin cursor: son las que se regeneran tras un cambio
+        boolean isEntryPoint();
+    }
+
+    private record CatalogKey(ProductSort sort, String cursor, int limit) implements Key {
+
+        @Override
+        public boolean isEntryPoint() {
+            return cursor == null;
+        }
+    }
+
+    private record OwnerKey(UUID ownerId) implements Key {
+
+        @Override
+        public boolean isEntryPoint() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.UserResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Caché de identidades de usuario indexada por id y por email.
+ * La usan /me, login y register para no consultar la tabla users en cada petición;
+ * UserService la invalida en updateUser y deleteUser.
+ */
+@Component
+public class UserIdentityCache {
+
+    private final Cache<UUID, UserResponseDTO> byId;
+    private final Cache<String, UUID> idByEmail;
+
+    public UserIdentityCache(@Value("${ecotrade.cache.users.max-size:10000}") long maxSize,
+                             @Value("${ecotrade.cache.users.ttl:PT15M}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users");
+    }
+
+    public Optional<UserResponseDTO> getById(UUID id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    public Optional<UserResponseDTO> getByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        UUID id = idByEmail.getIfPresent(email);
+        return getById(id).filter(user -> email.equals(user.getEmail()));
+    }
+
+    public UserResponseDTO put(UserResponseDTO user) {
+        byId.put(user.getId(), user);
+        idByEmail.put(user.getEmail(), user.getId());
+        return user;
+    }
+
+    public void evict(UUID id, String email) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        if (email != null) {
+            idByEmail.invalidate(email);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.ecotrade.service;
+
+/**
+ * El id, el email o el supabase_id del alta ya pertenecen a otro usuario: no se devuelve su identidad.
+ */
+public class UserIdentityConflictException extends RuntimeException {
+
+    public UserIdentityConflictException() {
+        super("User already exists with a different id, email or Supabase id");
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.ecotrade.service;
 
+import com.example.ecotrade.dto.UserResponseDTO;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
 import com.example.ecotrade.model.User;
+import com.example.ecotrade.repository.ProductRepository;
 import com.example.ecotrade.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,29 +25,102 @@ import java.util.UUID;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserIdentityCache identityCache;
+    private final ProductRepository productRepository;
+    private final OwnerStatsService ownerStats;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserIdentityCache identityCache,
+                       ProductRepository productRepository, OwnerStatsService ownerStats,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.identityCache = identityCache;
+        this.productRepository = productRepository;
+        this.ownerStats = ownerStats;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    // Lecturas en transacción de solo lectura con proyecciones: sin entidades gestionadas,
+    // sin dirty checking y sin flush al terminar
+    @Transactional(readOnly = true)
+    public List<UserResponseDTO> getAllUsers() {
+        return userRepository.findAllDtos();
     }
 
-    public Optional<User> getUserById(UUID id) {
-        return userRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<UserResponseDTO> getUserById(UUID id) {
+        return userRepository.findDtoById(id);
     }
 
-    public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+    @Transactional(readOnly = true)
+    public Optional<UserResponseDTO> getUserByEmail(String email) {
+        return userRepository.findDtoByEmail(email);
+    }
+
+    /**
+     * Identidad del usuario autenticado: se busca por el id del JWT (sub) y, si no existe
+     * una fila con ese id, por el email del token.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserResponseDTO> getIdentity(UUID id, String email) {
+        Optional<UserResponseDTO> cached = identityCache.getById(id).or(() -> identityCache.getByEmail(email));
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<UserResponseDTO> user = id != null ? userRepository.findDtoById(id) : Optional.empty();
+        if (user.isEmpty() && email != null) {
+            user = userRepository.findDtoByEmail(email);
+        }
+        return user.map(identityCache::put);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserResponseDTO> getIdentityByEmail(String email) {
+        return identityCache.getByEmail(email)
+                .or(() -> userRepository.findDtoByEmail(email).map(identityCache::put));
+    }
+
+    /**
+     * Alta idempotente usada por /auth/register: un único INSERT ... ON CONFLICT DO NOTHING.
+     * Si el usuario ya existía (por id, email o supabase_id) se devuelve la fila existente.
+     */
+    public RegistrationResult registerUser(UUID id, String email, String displayName, String supabaseId) {
+        Optional<UserResponseDTO> cached = identityCache.getById(id).or(() -> identityCache.getByEmail(email));
+        if (cached.isPresent()) {
+            return new RegistrationResult(sameIdentity(cached.get(), id, email, supabaseId), false);
+        }
+
+        LocalDateTime createdAt = LocalDateTime.now();
+        if (userRepository.insertIfAbsent(id, email, displayName, supabaseId, createdAt) == 1) {
+            User user = new User(email, displayName, null, supabaseId);
+            user.setId(id);
+            user.setCreatedAt(createdAt);
+            return new RegistrationResult(identityCache.put(new UserResponseDTO(user)), true);
+        }
+
+        // Conflicto en id, email o supabase_id: solo es el mismo usuario si coinciden los tres
+        UserResponseDTO existing = userRepository.findDtoById(id)
+                .or(() -> userRepository.findDtoByEmail(email))
+                .orElseThrow(UserIdentityConflictException::new);
+        return new RegistrationResult(identityCache.put(sameIdentity(existing, id, email, supabaseId)), false);
+    }
+
+    private static UserResponseDTO sameIdentity(UserResponseDTO existing, UUID id, String email, String supabaseId) {
+        if (!existing.getId().equals(id) || !existing.getEmail().equals(email)
+                || !Objects.equals(existing.getSupabaseId(), supabaseId)) {
+            throw new UserIdentityConflictException();
+        }
+        return existing;
     }
 
     public User createUser(User user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
+        // La restricción única sobre email evita una consulta previa de existencia
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
             throw new RuntimeException("Email already exists");
         }
-        return userRepository.save(user);
     }
 
     public User updateUser(UUID id, User userDetails) {
@@ -47,16 +130,54 @@ public class UserService {
         user.setDisplayName(userDetails.getDisplayName());
         user.setAvatarUrl(userDetails.getAvatarUrl());
 
+        evictIdentity(user.getId(), user.getEmail());
         return userRepository.save(user);
     }
 
+    /**
+     * Borra el usuario y todos sus productos con sentencias sobre conjuntos, en una transacción:
+     * el coste no crece en consultas con el número de productos (la cascada de User.products
+     * cargaba cada producto y lo borraba fila a fila). Los ids borrados viajan en el evento para
+     * invalidar caché, índice de búsqueda y ETag tras el commit.
+     */
     public void deleteUser(UUID id) {
-        User user = userRepository.findById(id)
+        // Con la fila del usuario bloqueada no se le pueden añadir productos entre la lectura de los ids y el
+        // DELETE: el evento lleva todos los productos borrados
+        UserResponseDTO user = userRepository.findDtoByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
-        userRepository.delete(user);
+        evictIdentity(user.getId(), user.getEmail());
+
+        List<Long> productIds = productRepository.findIdsByOwnerId(id);
+        if (!productIds.isEmpty()) {
+            productRepository.deleteByOwnerIdInBulk(id);
+            ownerStats.ownerRemoved(id);
+        }
+        userRepository.deleteByIdInBulk(id);
+
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(ProductsBulkChangedEvent.deleted(id, productIds));
+        }
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return identityCache.getByEmail(email).isPresent() || userRepository.existsByEmail(email);
+    }
+
+    // Se invalida ya y otra vez tras el commit, para que una lectura concurrente
+    // no deje en la caché la versión anterior a la transacción
+    private void evictIdentity(UUID id, String email) {
+        identityCache.evict(id, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    identityCache.evict(id, email);
+                }
+            });
+        }
+    }
+
+    public record RegistrationResult(UserResponseDTO user, boolean created) {
     }
 }
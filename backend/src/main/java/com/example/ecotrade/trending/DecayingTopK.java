@@ -0,0 +1,238 @@
+package com.example.ecotrade.trending;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Elementos más frecuentes de un flujo con decaimiento exponencial: un evento de hace un window pesa 1/e.
+ * Las frecuencias se estiman con un count-min sketch (depth filas de width contadores, actualización
+ * conservadora) y los capacity elementos con más peso se mantienen en un montículo de mínimos indexado.
+ * La memoria es fija: no depende de cuántos elementos distintos aparezcan.
+ *
+ * El decaimiento es "hacia delante": cada evento suma peso * e^((t - referencia) / window), así los
+ * contadores no hay que envejecerlos y el orden del montículo no cambia con el tiempo; al leer se
+ * multiplica por e^(-(ahora - referencia) / window). Cuando el exponente crece demasiado se reescala todo
+ * y la referencia pasa a ser el instante actual.
+ *
+ * Seguro entre hilos; cada operación es O(depth + log capacity) bajo un cerrojo propio.
+ */
+public final class DecayingTopK {
+
+    // e^32 ~ 8e13: lejos del límite de double y con precisión de sobra para sumar pesos de 1
+    private static final double RESCALE_EXPONENT = 32;
+
+    private final double windowMillis;
+    private final int depth;
+    private final int mask;
+    private final long[] seeds;
+    private final double[] counters;
+    private final int capacity;
+    private final long[] heapItems;
+    private final double[] heapScores;
+    private final Map<Long, Integer> positions;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int heapSize;
+    private long landmark;
+    private long latest;
+
+    /**
+     * @param width contadores por fila; se redondea a la potencia de dos superior
+     */
+    public DecayingTopK(Duration window, int width, int depth, int capacity, long startMillis) {
+        if (window.isNegative() || window.isZero() || width < 1 || depth < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Invalid sketch configuration");
+        }
+        int rowWidth = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.windowMillis = window.toMillis();
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.seeds = new SplittableRandom(0x7E4D_1A6EL).longs(depth).toArray();
+        this.counters = new double[depth * rowWidth];
+        this.capacity = capacity;
+        this.heapItems = new long[capacity];
+        this.heapScores = new double[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+        this.landmark = startMillis;
+        this.latest = startMillis;
+    }
+
+    public void add(long item, double weight, long nowMillis) {
+        lock.lock();
+        try {
+            long now = advance(nowMillis);
+            double scaled = weight * Math.exp((now - landmark) / windowMillis);
+
+            // Actualización conservadora: solo suben los contadores que determinan la estimación
+            int rowWidth = mask + 1;
+            double estimate = Double.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, counters[row * rowWidth + index(item, row)]);
+            }
+            estimate += scaled;
+            for (int row = 0; row < depth; row++) {
+                int cell = row * rowWidth + index(item, row);
+                if (counters[cell] < estimate) {
+                    counters[cell] = estimate;
+                }
+            }
+            offer(item, estimate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Deja de proponerlo entre los más frecuentes (p. ej. un producto borrado); su peso sigue en el sketch
+    public void remove(long item) {
+        lock.lock();
+        try {
+            Integer position = positions.remove(item);
+            if (position == null) {
+                return;
+            }
+            heapSize--;
+            if (position < heapSize) {
+                move(heapSize, position);
+                siftDown(position);
+                siftUp(position);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hasta limit elementos con más peso en nowMillis, de mayor a menor. La puntuación es la suma de los
+     * pesos decaídos: para eventos de peso 1, aproximadamente los ocurridos en el último window.
+     */
+    public List<Entry> top(int limit, long nowMillis) {
+        List<Entry> entries;
+        lock.lock();
+        try {
+            entries = new ArrayList<>(heapSize);
+            double decay = Math.exp(-(Math.max(nowMillis, latest) - landmark) / windowMillis);
+            for (int i = 0; i < heapSize; i++) {
+                entries.add(new Entry(heapItems[i], heapScores[i] * decay));
+            }
+        } finally {
+            lock.unlock();
+        }
+        entries.sort(Comparator.comparingDouble(Entry::score).reversed().thenComparingLong(Entry::item));
+        return entries.size() > limit ? List.copyOf(entries.subList(0, limit)) : entries;
+    }
+
+    public double estimate(long item, long nowMillis) {
+        lock.lock();
+        try {
+            int rowWidth = mask + 1;
+            double estimate = Double.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, counters[row * rowWidth + index(item, row)]);
+            }
+            return estimate * Math.exp(-(Math.max(nowMillis, latest) - landmark) / windowMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Contadores y montículo (sin contar el mapa de posiciones, acotado también por capacity)
+    public long memoryBytes() {
+        return (long) counters.length * Double.BYTES + (long) capacity * (Long.BYTES + Double.BYTES);
+    }
+
+    // El reloj no retrocede: un instante anterior al último visto cuenta como el último
+    private long advance(long nowMillis) {
+        if (nowMillis > latest) {
+            latest = nowMillis;
+        }
+        if ((latest - landmark) / windowMillis > RESCALE_EXPONENT) {
+            double factor = Math.exp(-(latest - landmark) / windowMillis);
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] *= factor;
+            }
+            for (int i = 0; i < heapSize; i++) {
+                heapScores[i] *= factor;
+            }
+            landmark = latest;
+        }
+        return latest;
+    }
+
+    private int index(long item, int row) {
+        long z = item ^ seeds[row];
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31)) & mask;
+    }
+
+    // Con el reloj avanzando, la estimación de un elemento solo crece: dentro del montículo baja hacia las hojas
+    private void offer(long item, double score) {
+        Integer position = positions.get(item);
+        if (position != null) {
+            heapScores[position] = score;
+            siftDown(position);
+        } else if (heapSize < capacity) {
+            set(heapSize, item, score);
+            siftUp(heapSize++);
+        } else if (score > heapScores[0]) {
+            positions.remove(heapItems[0]);
+            set(0, item, score);
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (heapScores[parent] <= heapScores[position]) {
+                return;
+            }
+            swap(parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapSize && heapScores[left] < heapScores[smallest]) {
+                smallest = left;
+            }
+            if (right < heapSize && heapScores[right] < heapScores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(smallest, position);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long item = heapItems[a];
+        double score = heapScores[a];
+        set(a, heapItems[b], heapScores[b]);
+        set(b, item, score);
+    }
+
+    private void move(int from, int to) {
+        set(to, heapItems[from], heapScores[from]);
+    }
+
+    private void set(int position, long item, double score) {
+        heapItems[position] = item;
+        heapScores[position] = score;
+        positions.put(item, position);
+    }
+
+    public record Entry(long item, double score) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.ecotrade.trending;
+
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Productos en tendencia por ventana (última hora, último día): un DecayingTopK por ventana alimentado
+ * con las visitas del detalle (peso 1) y las altas (creation-weight, para que un anuncio nuevo pueda
+ * aparecer antes de acumular visitas). La memoria es fija, sketch-width x sketch-depth contadores y
+ * candidates productos por ventana, sin importar el tamaño del catálogo.
+ *
+ * recordView está en el camino de la ficha de producto y no toca los sketches: suma con CAS en un contador
+ * por producto, sin bloqueos. Cada drain-interval (y antes de cada consulta de tendencias) se vuelcan las
+ * visitas acumuladas en los sketches, una actualización por producto. Un contador sin visitas en todo un
+ * intervalo se cierra antes de sacarlo del mapa: una visita que llega a un contador cerrado se repite en
+ * uno nuevo, así no se pierde ninguna.
+ */
+@Component
+public class TrendingProducts implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingProducts.class);
+
+    private static final long CLOSED = -1;
+
+    private final Map<TrendingWindow, DecayingTopK> windows = new EnumMap<>(TrendingWindow.class);
+    private final double creationWeight;
+    private final Clock clock;
+    private final Duration drainInterval;
+
+    private final Map<Long, AtomicLong> pendingViews = new ConcurrentHashMap<>();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private volatile ScheduledExecutorService scheduler;
+
+    @Autowired
+    public TrendingProducts(@Value("${ecotrade.trending.sketch-width:4096}") int sketchWidth,
+                            @Value("${ecotrade.trending.sketch-depth:4}") int sketchDepth,
+                            @Value("${ecotrade.trending.candidates:200}") int candidates,
+                            @Value("${ecotrade.trending.creation-weight:5}") double creationWeight,
+                            @Value("${ecotrade.trending.drain-interval:PT1S}") Duration drainInterval) {
+        this(sketchWidth, sketchDepth, candidates, creationWeight, drainInterval, Clock.systemUTC());
+    }
+
+    TrendingProducts(int sketchWidth, int sketchDepth, int candidates, double creationWeight,
+                     Duration drainInterval, Clock clock) {
+        this.creationWeight = creationWeight;
+        this.clock = clock;
+        this.drainInterval = drainInterval;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows.put(window, new DecayingTopK(window.duration(), sketchWidth, sketchDepth, candidates, clock.millis()));
+        }
+    }
+
+    public void recordView(Long productId) {
+        while (true) {
+            AtomicLong views = pendingViews.get(productId);
+            if (views == null) {
+                views = pendingViews.computeIfAbsent(productId, id -> new AtomicLong());
+            }
+            long current = views.get();
+            if (current == CLOSED) {
+                // El volcado lo acaba de retirar: se cuenta en el contador nuevo
+                pendingViews.remove(productId, views);
+            } else if (views.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> record(event.productId(), creationWeight);
+            case DELETED -> remove(event.productId());
+            case UPDATED -> {
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsBulkChanged(ProductsBulkChangedEvent event) {
+        event.deletedProductIds().forEach(this::remove);
+    }
+
+    /**
+     * Ids de hasta limit productos en tendencia en la ventana, del que más al que menos.
+     */
+    public List<Long> trending(TrendingWindow window, int limit) {
+        drain();
+        return windows.get(window).top(limit, clock.millis()).stream()
+                .map(DecayingTopK.Entry::item)
+                .toList();
+    }
+
+    // Puntuación estimada de un producto en la ventana, con las visitas ya volcadas
+    double estimate(TrendingWindow window, long productId) {
+        return windows.get(window).estimate(productId, clock.millis());
+    }
+
+    /**
+     * Vuelca en los sketches las visitas acumuladas desde el volcado anterior.
+     */
+    void drain() {
+        drainLock.lock();
+        try {
+            for (Map.Entry<Long, AtomicLong> entry : pendingViews.entrySet()) {
+                AtomicLong counter = entry.getValue();
+                long views = counter.getAndSet(0);
+                if (views > 0) {
+                    record(entry.getKey(), views);
+                } else if (counter.compareAndSet(0, CLOSED)) {
+                    // Un intervalo entero sin visitas: el contador sale del mapa para no crecer sin límite
+                    pendingViews.remove(entry.getKey(), counter);
+                }
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void record(long productId, double weight) {
+        long now = clock.millis();
+        for (DecayingTopK sketch : windows.values()) {
+            sketch.add(productId, weight, now);
+        }
+    }
+
+    private void remove(long productId) {
+        pendingViews.remove(productId);
+        for (DecayingTopK sketch : windows.values()) {
+            sketch.remove(productId);
+        }
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trending-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                log.warn("No se pudieron volcar las visitas en las tendencias: {}", e.getMessage());
+            }
+        }, drainInterval.toMillis(), drainInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = scheduler;
+        scheduler = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
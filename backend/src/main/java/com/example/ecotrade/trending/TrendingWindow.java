@@ -0,0 +1,33 @@
+package com.example.ecotrade.trending;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Ventanas de "tendencias": cada una es un DecayingTopK cuyo peso cae a 1/e en la duración de la ventana.
+ */
+public enum TrendingWindow {
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1));
+
+    private final Duration duration;
+
+    TrendingWindow(Duration duration) {
+        this.duration = duration;
+    }
+
+    public Duration duration() {
+        return duration;
+    }
+
+    public static TrendingWindow fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return HOUR;
+        }
+        try {
+            return TrendingWindow.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid window: " + value);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.ecotrade.controller;
+
+import com.example.ecotrade.model.Product;
+import com.example.ecotrade.service.OwnerStatsService;
+import com.example.ecotrade.service.ProductService;
+import com.example.ecotrade.support.QueryCountTest;
+import com.example.ecotrade.support.SqlCapture;
+import com.example.ecotrade.support.TestJwt;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL y filas leídas por cada endpoint de ProductController.
+ * Cada test usa dueños y productos nuevos, así que las cachés de lectura empiezan frías.
+ * Si un cambio añade consultas (p. ej. un acceso perezoso a Product.user) estos números dejan de cuadrar.
+ */
+@QueryCountTest
+class ProductEndpointQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OwnerStatsService ownerStatsService;
+
+    @Value("${supabase.jwt.secret}")
+    private String jwtSecret;
+
+    private UUID ownerId;
+    private String ownerToken;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM owner_listing_stats");
+        jdbcTemplate.update("DELETE FROM users");
+        ownerId = seedUser("seller");
+        ownerToken = TestJwt.bearer(jwtSecret, ownerId, "seller-" + ownerId + "@ecotrade.test");
+    }
+
+    @Test
+    void catalogPagesReadOnePageEachThenArePreRendered() throws Exception {
+        seedProducts(ownerId, 8);
+
+        // Se lee un elemento de más para saber si hay página siguiente
+        MvcResult[] first = new MvcResult[1];
+        sqlCapture.capture(() -> first[0] = mockMvc.perform(get("/api/products").param("limit", "5"))
+                        .andExpect(status().isOk())
+                        .andReturn())
+                .assertQueries(1, 6);
+
+        String cursor = JsonPath.read(first[0].getResponse().getContentAsString(), "$.nextCursor");
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products").param("limit", "5").param("cursor", cursor))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 3);
+
+        // Las páginas ya servidas salen de los bytes pre-renderizados, también en gzip
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products").param("limit", "5"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().bytes(first[0].getResponse().getContentAsByteArray())))
+                .assertQueries(0, 0);
+        MvcResult[] gzip = new MvcResult[1];
+        sqlCapture.capture(() -> gzip[0] = mockMvc.perform(get("/api/products").param("limit", "5")
+                                .header("Accept-Encoding", "gzip, deflate, br"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("Content-Encoding", "gzip"))
+                        .andReturn())
+                .assertQueries(0, 0);
+
+        // Cada codificación tiene su ETag y las dos se revalidan con un 304 que lleva el que envió el cliente
+        String etag = first[0].getResponse().getHeader("ETag");
+        String gzipETag = gzip[0].getResponse().getHeader("ETag");
+        assertEquals(etag.substring(0, etag.length() - 1) + "-gz\"", gzipETag);
+        for (String sent : List.of(etag, gzipETag)) {
+            sqlCapture.capture(() -> mockMvc.perform(get("/api/products").param("limit", "5")
+                                    .header("Accept-Encoding", "gzip")
+                                    .header("If-None-Match", "W/\"x\", " + sent))
+                            .andExpect(status().isNotModified())
+                            .andExpect(header().string("ETag", sent)))
+                    .assertQueries(0, 0);
+        }
+    }
+
+    @Test
+    void productDetailIsOneQueryThenCached() throws Exception {
+        Long productId = seedProducts(ownerId, 1).get(0);
+
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/{id}", productId)).andExpect(status().isOk()))
+                .assertQueries(1, 1);
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/{id}", productId)).andExpect(status().isOk()))
+                .assertQueries(0, 0);
+    }
+
+    @Test
+    void ownerListIsOneQueryThenCached() throws Exception {
+        seedProducts(ownerId, 7);
+
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/user/{userId}", ownerId)).andExpect(status().isOk()))
+                .assertQueries(1, 7);
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/user/{userId}", ownerId)).andExpect(status().isOk()))
+                .assertQueries(0, 0);
+    }
+
+    @Test
+    void searchLoadsOnlyMatchingProducts() throws Exception {
+        productService.createProduct(new Product("Zanfona antigua", 80.0, "Instrumento de cuerda", "10 años", ownerId), ownerId);
+        productService.createProduct(new Product("Funda de zanfona", 15.0, "Acolchada", "1 año", ownerId), ownerId);
+        productService.createProduct(new Product("Flauta dulce", 8.0, "Madera de peral", "2 años", ownerId), ownerId);
+
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/search").param("q", "zanfona"))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 2);
+    }
+
+    @Test
+    void similarProductsLoadOnlyTheRecommendations() throws Exception {
+        Product chair = productService.createProduct(new Product("Silla de oficina", 40.0, "Respaldo de malla y ruedas", "2 años", ownerId), ownerId);
+        productService.createProduct(new Product("Silla de oficina", 55.0, "Respaldo de malla y brazos", "1 año", ownerId), ownerId);
+        productService.createProduct(new Product("Flauta dulce", 8.0, "Madera de peral", "2 años", ownerId), ownerId);
+
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/{id}/similar", chair.getId()))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 1);
+    }
+
+    @Test
+    void trendingLoadsOnlyTheTopProducts() throws Exception {
+        List<Long> productIds = seedProducts(ownerId, 3);
+        // Muchas visitas para quedar por encima de lo que hayan dejado otros tests en el sketch compartido
+        for (int i = 0; i < 100; i++) {
+            productService.getProductById(productIds.get(2));
+            productService.getProductById(productIds.get(0));
+        }
+
+        MvcResult[] result = new MvcResult[1];
+        sqlCapture.capture(() -> result[0] = mockMvc.perform(get("/api/products/trending").param("limit", "2"))
+                        .andExpect(status().isOk())
+                        .andReturn())
+                .assertQueries(1, 2);
+        List<Integer> ids = JsonPath.read(result[0].getResponse().getContentAsString(), "$[*].id");
+        assertEquals(Set.of(productIds.get(0).intValue(), productIds.get(2).intValue()), Set.copyOf(ids));
+    }
+
+    @Test
+    void exportStreamsTheCatalogWithOneQuery() throws Exception {
+        seedProducts(ownerId, 4);
+
+        sqlCapture.capture(() -> {
+                    MvcResult started = mockMvc.perform(get("/api/products/export")
+                                    .header("Authorization", ownerToken))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+                    mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+                })
+                .assertQueries(1, 4);
+    }
+
+    @Test
+    void ownerStatsAreOneKeyLookupThenNotModified() throws Exception {
+        seedProducts(ownerId, 40);
+
+        MvcResult[] first = new MvcResult[1];
+        sqlCapture.capture(() -> first[0] = mockMvc.perform(get("/api/products/user/{userId}/stats", ownerId))
+                        .andExpect(status().isOk())
+                        .andReturn())
+                .assertQueries(1, 1);
+        String body = first[0].getResponse().getContentAsString();
+        assertEquals(40, (Integer) JsonPath.read(body, "$.listingCount"));
+        assertEquals(10.0, (Double) JsonPath.read(body, "$.minPrice"));
+        assertEquals(49.0, (Double) JsonPath.read(body, "$.maxPrice"));
+        assertEquals(29.5, (Double) JsonPath.read(body, "$.averagePrice"));
+
+        String etag = first[0].getResponse().getHeader("ETag");
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/products/user/{userId}/stats", ownerId)
+                                .header("If-None-Match", etag))
+                        .andExpect(status().isNotModified()))
+                .assertQueries(0, 0);
+    }
+
+    @Test
+    void createProductIsOneInsertPlusOneStatsUpdate() throws Exception {
+        seedProducts(ownerId, 1);
+
+        // Más la versión del catálogo (UPDATE y lectura) y la fila de catalog_changes en cada escritura
+        sqlCapture.capture(() -> mockMvc.perform(post("/api/products/user/{userId}", ownerId)
+                                .header("Authorization", ownerToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"name\":\"Lámpara\",\"price\":12.5,\"description\":\"De pie\",\"useTime\":\"1 año\"}"))
+                        .andExpect(status().isCreated()))
+                .assertQueries(5, 1);
+    }
+
+    @Test
+    void updateProductReadsTheProjectionThenIsOneConditionalUpdate() throws Exception {
+        Long productId = seedProducts(ownerId, 3).get(1);
+
+        // Proyección (estado anterior), UPDATE ... WHERE id = ? AND version = ? y el cambio de precio en las
+        // estadísticas del dueño (11 -> 10.5 no es ningún extremo), más las tres del registro de cambios.
+        // La respuesta no vuelve a leer la fila
+        sqlCapture.capture(() -> mockMvc.perform(put("/api/products/{id}", productId)
+                                .header("Authorization", ownerToken)
+                                .header("If-Match", "\"0\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"name\":\"Lámpara\",\"price\":10.5,\"description\":\"Rebajada\",\"useTime\":\"1 año\"}"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", "\"1\"")))
+                .assertQueries(6, 2);
+    }
+
+    @Test
+    void updateWithStaleVersionIsConflictWithoutTouchingTheRow() throws Exception {
+        Long productId = seedProducts(ownerId, 1).get(0);
+        jdbcTemplate.update("UPDATE product SET version = 3 WHERE id = ?", productId);
+
+        // La versión leída ya no es la esperada: no se intenta el UPDATE
+        sqlCapture.capture(() -> mockMvc.perform(put("/api/products/{id}", productId)
+                                .header("Authorization", ownerToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"name\":\"Lámpara\",\"price\":10.0,\"version\":2}"))
+                        .andExpect(status().isConflict())
+                        .andExpect(header().string("ETag", "\"3\"")))
+                .assertQueries(1, 1);
+        assertEquals("Producto 0", jdbcTemplate.queryForObject("SELECT name FROM product WHERE id = ?", String.class, productId));
+    }
+
+    @Test
+    void deleteProductLoadsProductAndOwnerThenDeletes() throws Exception {
+        Long productId = seedProducts(ownerId, 3).get(1);
+
+        // Producto, dueño, DELETE, el decremento de las estadísticas (no es ningún extremo) y el registro de cambios
+        sqlCapture.capture(() -> mockMvc.perform(delete("/api/products/{id}", productId)
+                                .header("Authorization", ownerToken))
+                        .andExpect(status().isOk()))
+                .assertQueries(7, 3);
+    }
+
+    @Test
+    void bulkImportIsOneBatchPerChunk() throws Exception {
+        seedProducts(ownerId, 2);
+
+        // Comprobación del dueño, un batch de INSERT con el UPDATE de las estadísticas del dueño
+        // y la reindexación de sus productos para la búsqueda y para los productos parecidos, más el registro
+        // de cambios (una fila para toda la importación)
+        sqlCapture.capture(() -> mockMvc.perform(post("/api/products/user/{userId}/bulk", ownerId)
+                                .header("Authorization", ownerToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"name\":\"Silla\",\"price\":5},{\"name\":\"Mesa\",\"price\":20},"
+                                        + "{\"name\":\"Sofá\",\"price\":90}]"))
+                        .andExpect(status().isOk()))
+                .assertQueries(8, 12);
+    }
+
+    private UUID seedUser(String prefix) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                id, prefix + "-" + id + "@ecotrade.test", "Seller", Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private List<Long> seedProducts(UUID owner, int count) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", "Producto " + i, 10.0 + i, owner,
+                    Timestamp.valueOf(now.minusMinutes(i)), "Descripción " + i, "1 año");
+        }
+        // Las filas se insertan por JDBC: las estadísticas del dueño se calculan aparte
+        ownerStatsService.refresh(owner);
+        return jdbcTemplate.queryForList("SELECT id FROM product WHERE owner_id = ? ORDER BY id", Long.class, owner);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.ecotrade.controller;
+
+import com.example.ecotrade.support.QueryCountTest;
+import com.example.ecotrade.support.SqlCapture;
+import com.example.ecotrade.support.TestJwt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL y filas leídas por cada endpoint de UserController.
+ * Cada test crea usuarios nuevos, así que la caché de identidades empieza fría para ellos.
+ */
+@QueryCountTest
+class UserEndpointQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${supabase.jwt.secret}")
+    private String jwtSecret;
+
+    private UUID userId;
+    private String email;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM users");
+        userId = UUID.randomUUID();
+        email = "user-" + userId + "@ecotrade.test";
+        seedUser(userId, email);
+        token = TestJwt.bearer(jwtSecret, userId, email);
+    }
+
+    @Test
+    void listUsersIsOneQuery() throws Exception {
+        seedUser(UUID.randomUUID(), "other-" + UUID.randomUUID() + "@ecotrade.test");
+        seedUser(UUID.randomUUID(), "other-" + UUID.randomUUID() + "@ecotrade.test");
+
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users").header("Authorization", token))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 3);
+    }
+
+    @Test
+    void userByIdIsOneQuery() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/{id}", userId).header("Authorization", token))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 1);
+    }
+
+    @Test
+    void userByEmailIsOneQueryThenCached() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/email/{email}", email)).andExpect(status().isOk()))
+                .assertQueries(1, 1);
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/email/{email}", email)).andExpect(status().isOk()))
+                .assertQueries(0, 0);
+    }
+
+    @Test
+    void emailExistsIsOneQuery() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/exists/{email}", email)).andExpect(status().isOk()))
+                .assertQueries(1, 1);
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/exists/{email}", "nobody@ecotrade.test"))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 0);
+    }
+
+    @Test
+    void createUserChecksIdThenInserts() throws Exception {
+        UUID newId = UUID.randomUUID();
+
+        // save() con id asignado hace merge: SELECT por id y después INSERT
+        sqlCapture.capture(() -> mockMvc.perform(post("/api/users")
+                                .header("Authorization", token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"id\":\"" + newId + "\",\"email\":\"new-" + newId + "@ecotrade.test\","
+                                        + "\"displayName\":\"Nuevo\"}"))
+                        .andExpect(status().isCreated()))
+                .assertQueries(2, 0);
+    }
+
+    @Test
+    void updateUserLoadsThenUpdates() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(put("/api/users/{id}", userId)
+                                .header("Authorization", token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"displayName\":\"Otro nombre\",\"avatarUrl\":\"https://img.test/a.png\"}"))
+                        .andExpect(status().isOk()))
+                .assertQueries(2, 1);
+    }
+
+    @Test
+    void deleteUserIsSetBasedWhateverItsProductCount() throws Exception {
+        seedProduct(userId);
+        seedProduct(userId);
+
+        // Usuario (bloqueado), ids de sus productos (para invalidar cachés), un DELETE de productos, el de sus
+        // estadísticas, el del usuario y el registro de cambios del catálogo (versión y un batch con una fila
+        // por producto borrado)
+        SqlCapture.Result result = sqlCapture.capture(() -> mockMvc.perform(delete("/api/users/{id}", userId)
+                                .header("Authorization", token))
+                        .andExpect(status().isOk()))
+                .assertQueries(8, 4);
+        assertTrue(result.sql().get(0).toLowerCase().contains("for update"), result.sql().get(0));
+
+        // Con 50 productos siguen siendo las mismas 8 sentencias
+        UUID otherId = UUID.randomUUID();
+        String otherEmail = "other-" + otherId + "@ecotrade.test";
+        seedUser(otherId, otherEmail);
+        for (int i = 0; i < 50; i++) {
+            seedProduct(otherId);
+        }
+        String otherToken = TestJwt.bearer(jwtSecret, otherId, otherEmail);
+        sqlCapture.capture(() -> mockMvc.perform(delete("/api/users/{id}", otherId).header("Authorization", otherToken))
+                        .andExpect(status().isOk()))
+                .assertQueries(8, 52);
+    }
+
+    @Test
+    void registerIsOneUpsert() throws Exception {
+        UUID newId = UUID.randomUUID();
+
+        sqlCapture.capture(() -> mockMvc.perform(post("/api/users/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(registerBody(newId, "new-" + newId + "@ecotrade.test")))
+                        .andExpect(status().isCreated()))
+                .assertQueries(1, 0);
+    }
+
+    @Test
+    void registerOfExistingUserReadsItBack() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(post("/api/users/auth/register")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(registerBody(userId, email)))
+                        .andExpect(status().isOk()))
+                .assertQueries(2, 1);
+    }
+
+    // El email o el id ya son de otro usuario: se rechaza en vez de devolver la identidad ajena
+    @Test
+    void registerWithAnotherUsersEmailOrIdIsAConflict() throws Exception {
+        UUID newId = UUID.randomUUID();
+        mockMvc.perform(post("/api/users/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(registerBody(newId, email)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/users/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(registerBody(userId, "new-" + newId + "@ecotrade.test")))
+                .andExpect(status().isConflict());
+        // También cuando la identidad ya está en caché
+        mockMvc.perform(get("/api/users/me").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/users/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(registerBody(newId, email)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void loginIsOneQuery() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(post("/api/users/auth/login")
+                                .header("Authorization", token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"email\":\"" + email + "\"}"))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 1);
+    }
+
+    @Test
+    void currentUserIsOneQueryThenCached() throws Exception {
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/me").header("Authorization", token))
+                        .andExpect(status().isOk()))
+                .assertQueries(1, 1);
+        sqlCapture.capture(() -> mockMvc.perform(get("/api/users/me").header("Authorization", token))
+                        .andExpect(status().isOk()))
+                .assertQueries(0, 0);
+    }
+
+    private static String registerBody(UUID id, String email) {
+        return "{\"email\":\"" + email + "\",\"name\":\"Nuevo\",\"supabaseId\":\"" + id + "\"}";
+    }
+
+    // Como los usuarios dados de alta por /auth/register: supabase_id es el id
+    private void seedUser(UUID id, String userEmail) {
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at, supabase_id) VALUES (?, ?, ?, ?, ?)",
+                id, userEmail, "User", Timestamp.valueOf(LocalDateTime.now()), id.toString());
+    }
+
+    private void seedProduct(UUID owner) {
+        jdbcTemplate.update("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", "Producto", 10.0, owner, Timestamp.valueOf(LocalDateTime.now()),
+                "Descripción", "1 año");
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.ecotrade.datasource;
+
+import com.example.ecotrade.controller.ProductController;
+import com.example.ecotrade.dto.OwnerStatsDTO;
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.model.Product;
+import com.example.ecotrade.service.OwnerStatsService;
+import com.example.ecotrade.service.ProductService;
+import com.example.ecotrade.service.ProductSort;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Enrutado a réplicas con dos bases H2 en memoria: la del perfil test hace de primario y una segunda,
+ * con el mismo esquema, de réplica. Cada base tiene un producto distinto, así que el resultado de una
+ * lectura indica a qué base ha ido. El retraso de la réplica se simula con la tabla replica_lag.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "ecotrade.datasource.replicas.urls=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "ecotrade.datasource.replicas.lag-query=SELECT lag_seconds FROM replica_lag",
+        "ecotrade.datasource.replicas.max-lag=PT5S",
+        "ecotrade.datasource.replicas.lag-check-interval=PT1H"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private OwnerStatsService ownerStatsService;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    private JdbcTemplate primary;
+    private UUID ownerId;
+
+    // La réplica no la crea Hibernate: se le da el esquema que tendría tras replicar el del primario
+    @BeforeAll
+    static void createReplicaSchema() {
+        replica.execute("CREATE TABLE IF NOT EXISTS users (id UUID PRIMARY KEY, email VARCHAR(255) NOT NULL UNIQUE, " +
+                "display_name VARCHAR(255), avatar_url VARCHAR(255), created_at TIMESTAMP NOT NULL, supabase_id VARCHAR(255))");
+        replica.execute("CREATE TABLE IF NOT EXISTS product (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "name VARCHAR(255) NOT NULL, price DOUBLE PRECISION NOT NULL, owner_id UUID NOT NULL REFERENCES users(id), " +
+                "created_at TIMESTAMP NOT NULL, description TEXT, use_time VARCHAR(255), version BIGINT DEFAULT 0 NOT NULL)");
+        replica.execute("CREATE TABLE IF NOT EXISTS owner_listing_stats (owner_id UUID PRIMARY KEY, " +
+                "listing_count BIGINT NOT NULL, price_sum DOUBLE PRECISION NOT NULL, min_price DOUBLE PRECISION NOT NULL, " +
+                "max_price DOUBLE PRECISION NOT NULL, newest_created_at TIMESTAMP NOT NULL)");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds DOUBLE PRECISION)");
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        for (JdbcTemplate database : List.of(primary, replica)) {
+            database.update("DELETE FROM product");
+            database.update("DELETE FROM owner_listing_stats");
+            database.update("DELETE FROM users");
+        }
+        ownerId = UUID.randomUUID();
+        seed(primary, "Solo en el primario");
+        seed(replica, "Solo en la réplica");
+        setReplicaLag(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertEquals(List.of("Solo en la réplica"), catalogNames());
+    }
+
+    @Test
+    void writesGoToThePrimaryAndAnonymousReadsStayOnTheReplica() {
+        productService.createProduct(new Product("Nuevo", 3.0, "Recién publicado", "1 mes", ownerId), ownerId);
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM product WHERE name = 'Nuevo'", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM product WHERE name = 'Nuevo'", Integer.class));
+        assertEquals(List.of("Solo en la réplica"), catalogNames());
+    }
+
+    @Test
+    void usersReadTheirOwnWritesFromThePrimary() {
+        authenticate("alice@ecotrade.test");
+        productService.createProduct(new Product("Nuevo", 3.0, "Recién publicado", "1 mes", ownerId), ownerId);
+        assertEquals(List.of("Nuevo", "Solo en el primario"), catalogNames());
+
+        authenticate("bob@ecotrade.test");
+        assertEquals(List.of("Solo en la réplica"), catalogNames());
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() {
+        setReplicaLag(60);
+        assertEquals(List.of("Solo en el primario"), catalogNames());
+
+        setReplicaLag(1);
+        assertEquals(List.of("Solo en la réplica"), catalogNames());
+    }
+
+    @Test
+    void forcedReadsGoToThePrimary() {
+        assertEquals(List.of("Solo en el primario"), PrimaryReads.call(this::catalogNames));
+    }
+
+    // Las estadísticas llevan el ETag en memoria del dueño: si salieran de una réplica atrasada, ese ETag
+    // validaría datos viejos hasta el siguiente cambio
+    @Test
+    void ownerStatsAreReadFromThePrimary() {
+        ownerStatsService.refresh(ownerId);
+        productService.createProduct(new Product("Nuevo", 3.0, "Recién publicado", "1 mes", ownerId), ownerId);
+
+        ResponseEntity<OwnerStatsDTO> response = productController.getOwnerStats(ownerId,
+                new ServletWebRequest(new MockHttpServletRequest()));
+        assertEquals(2, response.getBody().getListingCount());
+    }
+
+    private List<String> catalogNames() {
+        return productService.getProductPage(ProductSort.NEWEST, null, 10).getItems().stream()
+                .map(ProductResponseDTO::getName)
+                .toList();
+    }
+
+    private void seed(JdbcTemplate database, String productName) {
+        LocalDateTime now = LocalDateTime.now();
+        database.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "owner-" + ownerId + "@ecotrade.test", "Owner", Timestamp.valueOf(now));
+        database.update("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", productName, 10.0, ownerId, Timestamp.valueOf(now.minusHours(1)),
+                "Descripción", "1 año");
+    }
+
+    private void setReplicaLag(double seconds) {
+        replica.update("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag (lag_seconds) VALUES (?)", seconds);
+        lagMonitor.checkNow();
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(UsernamePasswordAuthenticationToken.authenticated(email, null, List.of()));
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.ecotrade.feed;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Entrega, compactación y reanudación del feed sin servidor: los envíos van a una lista y el executor
+ * es manual, así el test decide cuándo "lee" el cliente.
+ */
+class ProductFeedTests {
+
+    private static final UUID OWNER = UUID.randomUUID();
+    private static final UUID OTHER_OWNER = UUID.randomUUID();
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor = tasks::add;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProductFeed feed = new ProductFeed(JsonMapper.builder().build(), executor, 5, 3, 2,
+            Duration.ofMinutes(30), Duration.ofSeconds(25), Duration.ofSeconds(30), meterRegistry);
+
+    @Test
+    void deliversChangesInOrderAndFiltersByOwner() {
+        RecordingSink all = new RecordingSink();
+        RecordingSink owner = new RecordingSink();
+        feed.subscribe(null, null, all);
+        feed.subscribe(OTHER_OWNER, null, owner);
+
+        feed.onProductChanged(ProductChangedEvent.created(product(1L, OWNER)));
+        feed.onProductChanged(ProductChangedEvent.created(product(2L, OTHER_OWNER)));
+        runTasks();
+
+        assertEquals(List.of("product", "product"), all.names());
+        assertTrue(all.events().get(0).data().contains("\"productId\":1"));
+        assertEquals(List.of("product"), owner.names());
+        assertTrue(owner.events().get(0).data().contains("\"productId\":2"));
+    }
+
+    @Test
+    void slowClientReceivesOnlyTheLatestStateOfEachProduct() {
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, null, sink);
+        runTasks();
+
+        // El cliente no lee mientras se publican tres cambios del mismo producto
+        feed.onProductChanged(ProductChangedEvent.created(product(1L, OWNER)));
+        feed.onProductChanged(ProductChangedEvent.updated(product(1L, OWNER)));
+        feed.onProductChanged(ProductChangedEvent.deleted(product(1L, OWNER)));
+        runTasks();
+
+        assertEquals(1, sink.events().size());
+        assertTrue(sink.events().get(0).data().contains("\"type\":\"DELETED\""));
+        assertEquals(2.0, meterRegistry.get("ecotrade.feed.events").tag("outcome", "coalesced").counter().count());
+    }
+
+    @Test
+    void fullQueueIsDroppedAndReplacedByReset() {
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, null, sink);
+        runTasks();
+
+        for (long id = 1; id <= 5; id++) {
+            feed.onProductChanged(ProductChangedEvent.created(product(id, OWNER)));
+        }
+        runTasks();
+
+        // Cola de 3: el cuarto evento la desborda y el cliente solo recibe el reset con el último id
+        assertEquals(List.of("reset"), sink.names());
+        RecordingSink resumed = new RecordingSink();
+        feed.subscribe(null, sink.events().get(0).id(), resumed);
+        runTasks();
+        assertEquals(List.of(), resumed.names());
+    }
+
+    @Test
+    void reconnectWithLastEventIdReplaysMissedEvents() {
+        RecordingSink first = new RecordingSink();
+        feed.subscribe(null, null, first);
+        feed.onProductChanged(ProductChangedEvent.created(product(1L, OWNER)));
+        runTasks();
+        String lastEventId = first.events().get(0).id();
+
+        feed.onProductChanged(ProductChangedEvent.created(product(2L, OWNER)));
+        feed.onProductsBulkChanged(ProductsBulkChangedEvent.deleted(OWNER, List.of(1L, 2L)));
+
+        RecordingSink resumed = new RecordingSink();
+        feed.subscribe(null, lastEventId, resumed);
+        runTasks();
+
+        assertEquals(List.of("product", "bulk"), resumed.names());
+        assertTrue(resumed.events().get(1).data().contains("\"deletedProductIds\":[1,2]"));
+    }
+
+    @Test
+    void unknownOrExpiredLastEventIdGetsReset() {
+        for (long id = 1; id <= 7; id++) {
+            feed.onProductChanged(ProductChangedEvent.created(product(id, OWNER)));
+        }
+
+        RecordingSink otherStart = new RecordingSink();
+        feed.subscribe(null, "abc-3", otherStart);
+        runTasks();
+        assertEquals(List.of("reset"), otherStart.names());
+
+        // El histórico guarda los 5 últimos (3..7): desde el 2 no falta nada, desde el 1 se perdió el 2
+        RecordingSink expired = new RecordingSink();
+        String latest = otherStart.events().get(0).id();
+        feed.subscribe(null, latest.substring(0, latest.lastIndexOf('-') + 1) + 1, expired);
+        runTasks();
+        assertEquals(List.of("reset"), expired.names());
+        assertEquals(latest, expired.events().get(0).id());
+    }
+
+    @Test
+    void failedSendDisconnectsAndFreesTheSlot() {
+        RecordingSink broken = new RecordingSink();
+        broken.failing = true;
+        feed.subscribe(null, null, broken);
+        feed.subscribe(null, null, new RecordingSink());
+        assertThrows(IllegalStateException.class, () -> feed.subscribe(null, null, new RecordingSink()));
+
+        runTasks();
+
+        assertTrue(broken.closed);
+        assertEquals(1, feed.subscriberCount());
+        feed.subscribe(null, null, new RecordingSink());
+        assertEquals(2, feed.subscriberCount());
+    }
+
+    @Test
+    void stalledSendDisconnectsWithoutWaitingForTheWrite() {
+        ProductFeed strictFeed = new ProductFeed(JsonMapper.builder().build(), executor, 5, 3, 2,
+                Duration.ofMinutes(30), Duration.ofSeconds(25), Duration.ZERO, meterRegistry);
+        RecordingSink stuck = new RecordingSink();
+        // Mientras el envío sigue "en el socket" pasa la comprobación periódica
+        stuck.duringSend = strictFeed::disconnectStalled;
+        strictFeed.subscribe(null, null, stuck);
+        assertEquals(1, strictFeed.subscriberCount());
+
+        runTasks();
+
+        assertTrue(stuck.closed);
+        assertEquals(0, strictFeed.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("ecotrade.feed.stalled").counter().count());
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static ProductResponseDTO product(Long id, UUID ownerId) {
+        return new ProductResponseDTO(id, "Producto " + id, 10.0, ownerId, null, "Descripción", "1 año",
+                "Vendedor", 0L);
+    }
+
+    // Guarda los eventos enviados, sin los keepalive
+    private static final class RecordingSink implements FeedSubscriber.Sink {
+
+        private final List<FeedMessage> events = new ArrayList<>();
+        private boolean failing;
+        private boolean closed;
+        private Runnable duringSend = () -> {
+        };
+
+        @Override
+        public void send(FeedMessage message) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            duringSend.run();
+            if (message.name() != null) {
+                events.add(message);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        List<FeedMessage> events() {
+            return events;
+        }
+
+        List<String> names() {
+            return events.stream().map(FeedMessage::name).toList();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.ecotrade.search;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reconstrucción del índice de búsqueda con cambios que llegan mientras se leen los productos. El
+ * repositorio es un proxy que solo responde a la lectura por lotes de rebuild().
+ */
+class ProductSearchIndexTests {
+
+    private static final UUID OWNER = UUID.randomUUID();
+
+    private ProductSearchIndex index;
+
+    @Test
+    void changesDuringRebuildSurviveTheSwap() {
+        // La lectura ve la versión anterior de 1 y todavía no ve 3; mientras, llegan la modificación de 1,
+        // el alta de 3 y el borrado de 2
+        index = new ProductSearchIndex(repository(() -> {
+            index.index(product(1L, "Bicicleta plegable"));
+            index.index(product(3L, "Flauta dulce"));
+            index.remove(2L);
+            return List.of(product(1L, "Bicicleta de montaña"), product(2L, "Sofá cama"));
+        }));
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), index.search("plegable", 10));
+        assertEquals(List.of(), index.search("montaña", 10));
+        assertEquals(List.of(3L), index.search("flauta", 10));
+        assertEquals(List.of(), index.search("sofa", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void changesAfterARebuildAreNotReplayedIntoTheNext() {
+        index = new ProductSearchIndex(repository(() -> List.of(product(1L, "Bicicleta de montaña"))));
+        index.rebuild();
+
+        index.index(product(1L, "Bicicleta plegable"));
+        index.rebuild();
+
+        // El segundo rebuild vuelve a leer la versión del repositorio
+        assertEquals(List.of(1L), index.search("montaña", 10));
+        assertEquals(1, index.size());
+    }
+
+    private static ProductRepository repository(Supplier<List<ProductResponseDTO>> firstPage) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductSearchIndexTests.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findNewest" -> firstPage.get();
+                    case "findNewestAfter" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static ProductResponseDTO product(Long id, String name) {
+        return new ProductResponseDTO(id, name, 10.0, OWNER, LocalDateTime.now(), null, "1 año", "Seller", 0L);
+    }
+}
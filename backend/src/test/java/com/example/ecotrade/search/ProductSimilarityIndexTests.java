@@ -0,0 +1,111 @@
+package com.example.ecotrade.search;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.event.ProductsBulkChangedEvent;
+import com.example.ecotrade.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Índice de productos parecidos sin base de datos: los productos llegan como eventos, igual que desde
+ * ProductService. Los textos parecidos lo son mucho (Jaccard > 0,75) para que coincidir en alguna banda
+ * sea prácticamente seguro con las semillas fijas.
+ */
+class ProductSimilarityIndexTests {
+
+    private static final UUID OWNER = UUID.randomUUID();
+
+    private final ProductSimilarityIndex index = new ProductSimilarityIndex(null);
+
+    @Test
+    void nearDuplicatesComeFirstAndUnrelatedProductsAreLeftOut() {
+        index.index(product(1L, "Bicicleta de montaña", "Cuadro de aluminio, ruedas de 29 pulgadas, frenos de disco"));
+        index.index(product(2L, "Bicicleta de montaña",
+                "Cuadro de aluminio, ruedas de 29 pulgadas, frenos de disco hidráulicos"));
+        index.index(product(3L, "Bicicleta de carretera", "Cuadro de aluminio, ruedas de 28 pulgadas"));
+        index.index(product(4L, "Flauta dulce", "Madera de peral"));
+
+        List<Long> similar = index.similar(1L, 5);
+
+        assertEquals(2L, similar.get(0));
+        assertFalse(similar.contains(1L));
+        assertFalse(similar.contains(4L));
+        assertEquals(List.of(), index.similar(4L, 5));
+        assertEquals(List.of(), index.similar(99L, 5));
+    }
+
+    @Test
+    void followsUpdatesAndDeletions() {
+        index.onProductChanged(ProductChangedEvent.created(product(1L, "Silla de oficina", "Respaldo de malla y ruedas")));
+        index.onProductChanged(ProductChangedEvent.created(product(2L, "Silla de oficina", "Respaldo de malla y brazos")));
+        index.onProductChanged(ProductChangedEvent.created(product(3L, "Flauta dulce", "Madera de peral")));
+        assertEquals(List.of(2L), index.similar(1L, 5));
+
+        index.onProductChanged(ProductChangedEvent.updated(product(2L, "Flauta dulce", "Madera de peral")));
+        assertEquals(List.of(), index.similar(1L, 5));
+        assertEquals(List.of(3L), index.similar(2L, 5));
+
+        index.onProductChanged(ProductChangedEvent.deleted(product(3L, "Flauta dulce", "Madera de peral")));
+        assertEquals(List.of(), index.similar(2L, 5));
+
+        // Sin palabras indexables el producto sale del índice
+        index.onProductChanged(ProductChangedEvent.updated(product(2L, "de la", null)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void keepsAnsweringWhileGrowingAndAfterBulkDeletions() {
+        index.index(product(1L, "Lámpara de pie", "Pantalla de lino, bombilla incluida"));
+        index.index(product(2L, "Lámpara de pie", "Pantalla de lino, bombilla LED incluida"));
+        // Bastantes productos para doblar la tabla varias veces y reutilizar huecos después
+        for (long id = 3; id <= 5000; id++) {
+            index.index(product(id, "Lote " + id, "Pieza" + id + " recambio" + id));
+        }
+        assertEquals(5000, index.size());
+        assertEquals(List.of(2L), index.similar(1L, 1));
+
+        index.onProductsBulkChanged(ProductsBulkChangedEvent.deleted(OWNER, LongStream.rangeClosed(3, 5000).boxed().toList()));
+        index.index(product(5001L, "Lámpara de pie", "Pantalla de lino"));
+
+        assertEquals(3, index.size());
+        assertEquals(Set.of(2L, 5001L), Set.copyOf(index.similar(1L, 5)));
+    }
+
+    @Test
+    void changesDuringRebuildSurviveTheSwap() {
+        // Mientras se leen los productos (2 todavía con su texto anterior) llegan la modificación de 2 y el borrado de 3
+        ProductSimilarityIndex[] rebuilt = new ProductSimilarityIndex[1];
+        ProductRepository repository = (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findNewest" -> {
+                        rebuilt[0].index(product(2L, "Silla de oficina", "Respaldo de malla y brazos"));
+                        rebuilt[0].remove(3L);
+                        yield List.of(product(1L, "Silla de oficina", "Respaldo de malla y ruedas"),
+                                product(2L, "Flauta dulce", "Madera de peral"),
+                                product(3L, "Silla de oficina", "Respaldo de malla y ruedas"));
+                    }
+                    case "findNewestAfter" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        rebuilt[0] = new ProductSimilarityIndex(repository);
+
+        rebuilt[0].rebuild();
+
+        assertEquals(List.of(2L), rebuilt[0].similar(1L, 5));
+        assertEquals(2, rebuilt[0].size());
+    }
+
+    private static ProductResponseDTO product(Long id, String name, String description) {
+        return new ProductResponseDTO(id, name, 10.0, OWNER, LocalDateTime.now(), description, "1 año", "Seller", 0L);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.ecotrade.security;
+
+import com.example.ecotrade.support.QueryCountTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Las rutas públicas del catálogo solo abren GET, y {id} solo casa con números: el resto de rutas de un
+ * segmento bajo /api/products (como /export) y cualquier escritura sin token se rechazan.
+ */
+@QueryCountTest
+class PublicRoutesTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void catalogReadsArePublic() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/search").param("q", "mesa")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/{id}", 123456789L)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/products/{id}/similar", 123456789L)).andExpect(status().isOk());
+    }
+
+    @Test
+    void writesWithoutTokenAreRejected() throws Exception {
+        mockMvc.perform(put("/api/products/{id}", 1L).contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/products/{id}", 1L)).andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/products").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/products/search").param("q", "mesa")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void catalogExportRequiresToken() throws Exception {
+        mockMvc.perform(get("/api/products/export")).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ecotrade.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decisiones del token bucket con un reloj controlado por el test.
+ */
+class TokenBucketLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final TokenBucketLimiter limiter = new TokenBucketLimiter(3, Duration.ofSeconds(2), 1_000, now::get);
+
+    @Test
+    void burstUpToCapacityThenRejectsWithRetryHint() {
+        assertEquals(2, limiter.tryAcquire("ip:1").remaining());
+        assertEquals(1, limiter.tryAcquire("ip:1").remaining());
+        assertEquals(0, limiter.tryAcquire("ip:1").remaining());
+
+        TokenBucketLimiter.Decision rejected = limiter.tryAcquire("ip:1");
+        assertFalse(rejected.allowed());
+        assertEquals(TimeUnit.SECONDS.toNanos(2), rejected.retryAfterNanos());
+        assertEquals(2, rejected.retryAfterSeconds());
+    }
+
+    @Test
+    void refillsOneTokenPerPeriod() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user:a");
+        }
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_999));
+        assertFalse(limiter.tryAcquire("user:a").allowed());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire("user:a").allowed());
+        assertFalse(limiter.tryAcquire("user:a").allowed());
+
+        // Tras un periodo largo de inactividad el cubo vuelve a estar lleno, no más
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertEquals(2, limiter.tryAcquire("user:a").remaining());
+    }
+
+    @Test
+    void keysAreIndependent() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("ip:1");
+        }
+        assertFalse(limiter.tryAcquire("ip:1").allowed());
+        assertTrue(limiter.tryAcquire("ip:2").allowed());
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedCapacity() throws Exception {
+        TokenBucketLimiter frozen = new TokenBucketLimiter(100, Duration.ofHours(1), 1_000, now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            for (int t = 0; t < 32; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 50; i++) {
+                        if (frozen.tryAcquire("hot").allowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(100, allowed.get());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.search.ProductSearchIndex;
+import com.example.ecotrade.support.QueryCountTest;
+import com.example.ecotrade.support.SqlCapture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cambios hechos por otra instancia sobre la misma base de datos: se simulan escribiendo por JDBC el
+ * producto, la versión del catálogo y la fila de catalog_changes con otro origen.
+ */
+@QueryCountTest
+class CatalogVersionsTests {
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "seller-" + ownerId + "@ecotrade.test", "Seller", Timestamp.valueOf(LocalDateTime.now()));
+        // Los cambios de otros tests de este contexto ya aplicados
+        catalogVersions.poll();
+    }
+
+    @Test
+    void remoteChangeIsReplayedOnPoll() {
+        String catalogETag = catalogVersions.catalogETag();
+        String ownerETag = catalogVersions.ownerETag(ownerId);
+        assertTrue(productService.getProductsByUserId(ownerId).isEmpty());
+
+        Long productId = remoteCreate("Lámpara de mesa remota");
+
+        // Hasta el sondeo, esta instancia sigue sirviendo la lista cacheada con el mismo ETag
+        assertTrue(productService.getProductsByUserId(ownerId).isEmpty());
+        assertEquals(ownerETag, catalogVersions.ownerETag(ownerId));
+
+        catalogVersions.poll();
+
+        assertNotEquals(catalogETag, catalogVersions.catalogETag());
+        assertNotEquals(ownerETag, catalogVersions.ownerETag(ownerId));
+        assertEquals(List.of(productId), productService.getProductsByUserId(ownerId).stream()
+                .map(ProductResponseDTO::getId)
+                .toList());
+        assertTrue(searchIndex.search("lampara remota", 10).contains(productId));
+    }
+
+    @Test
+    void localChangeMovesETagsAtCommitAndIsNotReplayed() throws Exception {
+        String ownerETag = catalogVersions.ownerETag(ownerId);
+        Long productId = remoteCreate("Silla plegable");
+        catalogVersions.poll();
+        String afterRemote = catalogVersions.ownerETag(ownerId);
+        assertNotEquals(ownerETag, afterRemote);
+
+        productService.deleteProduct(productId);
+
+        String afterDelete = catalogVersions.ownerETag(ownerId);
+        assertNotEquals(afterRemote, afterDelete);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM catalog_changes " +
+                "WHERE product_id = ? AND change_type = 'DELETED'", Integer.class, productId));
+
+        // El sondeo salta los cambios propios: lee la versión y el cambio, sin consultar productos
+        sqlCapture.capture(() -> catalogVersions.poll()).assertQueries(2, 2);
+        assertEquals(afterDelete, catalogVersions.ownerETag(ownerId));
+    }
+
+    @Test
+    void missingChangesDiscardCachesAndMoveEveryETag() {
+        String ownerETag = catalogVersions.ownerETag(ownerId);
+        Long productId = remoteCreate("Mesa de centro");
+        // La fila del cambio ya no está (retención): solo queda la versión
+        jdbcTemplate.update("DELETE FROM catalog_changes WHERE product_id = ?", productId);
+        UUID otherOwner = UUID.randomUUID();
+        String otherETag = catalogVersions.ownerETag(otherOwner);
+
+        catalogVersions.poll();
+
+        assertNotEquals(ownerETag, catalogVersions.ownerETag(ownerId));
+        assertNotEquals(otherETag, catalogVersions.ownerETag(otherOwner));
+        assertEquals(1, productService.getProductsByUserId(ownerId).size());
+        assertTrue(searchIndex.search("mesa centro", 10).contains(productId));
+    }
+
+    private Long remoteCreate(String name) {
+        jdbcTemplate.update("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", name, 25.0, ownerId, Timestamp.valueOf(LocalDateTime.now()),
+                "Cambio de otra instancia", "1 año");
+        Long productId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product WHERE owner_id = ?",
+                Long.class, ownerId);
+        jdbcTemplate.update("UPDATE catalog_version SET version = version + 1 WHERE id = 1");
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM catalog_version WHERE id = 1", Long.class);
+        jdbcTemplate.update("INSERT INTO catalog_changes (version, origin, change_type, owner_id, product_id, " +
+                        "changed_at) VALUES (?, ?, ?, ?, ?, ?)", version, "other-instance", "CREATED", ownerId,
+                productId, Timestamp.valueOf(LocalDateTime.now()));
+        return productId;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.OwnerStatsDTO;
+import com.example.ecotrade.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las estadísticas mantenidas de forma incremental coinciden con las calculadas desde los productos
+ * en cada tipo de cambio (incluidos los que tocan el mínimo, el máximo o el más reciente), y la
+ * reconciliación detecta y corrige las filas desviadas.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:owner-stats;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@ActiveProfiles("test")
+class OwnerStatsTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductBulkImporter bulkImporter;
+
+    @Autowired
+    private OwnerStatsService ownerStatsService;
+
+    @Autowired
+    private OwnerStatsReconciler reconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM owner_listing_stats");
+        jdbcTemplate.update("DELETE FROM users");
+        ownerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "stats-" + ownerId + "@ecotrade.test", "Seller", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Test
+    void incrementalStatsFollowEveryKindOfChange() {
+        Product cheap = create("Taza", 3.0);
+        Product middle = create("Silla", 20.0);
+        Product expensive = create("Sofá", 150.0);
+        assertStats(3, 3.0, 150.0, 57.67);
+
+        // Subir el mínimo y bajar el máximo obligan a recalcular; un precio intermedio no
+        productService.updateProduct(cheap.getId(), details("Taza", 25.0), null);
+        assertStats(3, 20.0, 150.0, 65.0);
+        productService.updateProduct(expensive.getId(), details("Sofá", 100.0), 0L);
+        assertStats(3, 20.0, 100.0, 48.33);
+        productService.updateProduct(cheap.getId(), details("Taza", 30.0), null);
+        assertStats(3, 20.0, 100.0, 50.0);
+
+        // Al borrar el más reciente, el más reciente pasa a ser el anterior
+        productService.deleteProduct(expensive.getId());
+        assertStats(2, 20.0, 30.0, 25.0);
+        assertEquals(jdbcTemplate.queryForObject("SELECT created_at FROM product WHERE id = ?", LocalDateTime.class,
+                        middle.getId()),
+                ownerStatsService.getStats(ownerId).getNewestListingAt());
+
+        productService.deleteProduct(cheap.getId());
+        productService.deleteProduct(middle.getId());
+        OwnerStatsDTO empty = ownerStatsService.getStats(ownerId);
+        assertEquals(0, empty.getListingCount());
+        assertNull(empty.getAveragePrice());
+
+        assertEquals(Set.of(), reconciler.reconcile());
+    }
+
+    @Test
+    void bulkImportAddsEachChunkToTheStats() {
+        create("Lámpara", 12.0);
+        bulkImporter.importRows(ownerId, List.of(
+                Map.of("name", "Mesa", "price", 40),
+                Map.of("name", "Estantería", "price", 8.5),
+                Map.of("name", "Espejo", "price", 19.5)));
+
+        assertStats(4, 8.5, 40.0, 20.0);
+        assertEquals(Set.of(), reconciler.reconcile());
+    }
+
+    @Test
+    void reconciliationRepairsDriftedAndMissingRows() {
+        create("Bicicleta", 90.0);
+        create("Casco", 30.0);
+        // Escrituras fuera de la aplicación: un producto nuevo sin estadísticas y un dueño sin fila
+        jdbcTemplate.update("INSERT INTO product (name, price, owner_id, created_at) VALUES (?, ?, ?, ?)",
+                "Candado", 15.0, ownerId, Timestamp.valueOf(LocalDateTime.now()));
+        UUID otherOwner = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                otherOwner, "other-" + otherOwner + "@ecotrade.test", "Other", Timestamp.valueOf(LocalDateTime.now()));
+        jdbcTemplate.update("INSERT INTO product (name, price, owner_id, created_at) VALUES (?, ?, ?, ?)",
+                "Patinete", 60.0, otherOwner, Timestamp.valueOf(LocalDateTime.now()));
+        assertStats(2, 30.0, 90.0, 60.0);
+
+        Set<UUID> repaired = reconciler.reconcile();
+
+        assertEquals(Set.of(ownerId, otherOwner), repaired);
+        assertStats(3, 15.0, 90.0, 45.0);
+        assertEquals(1, ownerStatsService.getStats(otherOwner).getListingCount());
+        assertTrue(reconciler.reconcile().isEmpty());
+    }
+
+    private Product create(String name, double price) {
+        return productService.createProduct(new Product(name, price, "Descripción", "1 año", ownerId), ownerId);
+    }
+
+    private static Product details(String name, double price) {
+        return new Product(name, price, "Descripción", "1 año", null);
+    }
+
+    private void assertStats(long count, double min, double max, double average) {
+        OwnerStatsDTO stats = ownerStatsService.getStats(ownerId);
+        assertEquals(count, stats.getListingCount());
+        assertEquals(min, stats.getMinPrice());
+        assertEquals(max, stats.getMaxPrice());
+        assertEquals(average, stats.getAveragePrice());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ecotrade.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exporta un catálogo grande con un heap de 160 MB (ejecución low-heap-tests del pom).
+ * Materializar las filas como entidades o DTOs en una lista no cabría en ese heap.
+ * Se usa H2 en fichero para que los datos sembrados no ocupen el heap de la JVM de pruebas.
+ */
+@Tag("low-heap")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/export-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;CACHE_SIZE=8192"
+})
+@ActiveProfiles("test")
+class ProductExportServiceTests {
+
+    private static final int PRODUCT_COUNT = 400_000;
+    private static final int BATCH_SIZE = 5_000;
+    private static final String DESCRIPTION = "Mesa de estudio de madera maciza en buen estado, ideal para residencia. ".repeat(4);
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM users");
+
+        UUID ownerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "feed@ecotrade.test", "Feed Seller", Timestamp.valueOf(LocalDateTime.now()));
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            batch.add(new Object[]{"Producto " + i, 5.0 + (i % 500), ownerId,
+                    Timestamp.valueOf(LocalDateTime.now()), DESCRIPTION + i, "1 año"});
+            if (batch.size() == BATCH_SIZE) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        insert(batch);
+    }
+
+    @Test
+    void exportsWholeCatalogWithConstantMemory() throws Exception {
+        LineCountingOutputStream out = new LineCountingOutputStream();
+
+        long exported = productExportService.exportCatalog(out);
+
+        assertEquals(PRODUCT_COUNT, exported);
+        assertEquals(PRODUCT_COUNT, out.lines);
+    }
+
+    private void insert(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO product (name, price, owner_id, created_at, description, use_time) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        }
+    }
+
+    // Descarta los bytes y solo cuenta las líneas escritas
+    private static final class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.model.Product;
+import com.example.ecotrade.model.User;
+import com.example.ecotrade.repository.ProductRepository;
+import com.example.ecotrade.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductQueryCountTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void catalogPageUsesOneStatementRegardlessOfProductCount() {
+        seed(2, 3);
+        assertEquals(1, countStatements(() -> productService.getProductPage(ProductSort.NEWEST, null, 50)));
+
+        seed(10, 4);
+        assertEquals(1, countStatements(() -> productService.getProductPage(ProductSort.NEWEST, null, 50)));
+    }
+
+    @Test
+    void ownerListUsesOneStatementAndCarriesDisplayName() {
+        UUID ownerId = seed(1, 15).get(0);
+
+        List<ProductResponseDTO> products = new ArrayList<>();
+        long statements = countStatements(() -> products.addAll(productService.getProductsByUserId(ownerId)));
+
+        assertEquals(1, statements);
+        assertEquals(15, products.size());
+        products.forEach(product -> assertEquals("Seller 0", product.getUserName()));
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<UUID> seed(int users, int productsPerUser) {
+        List<UUID> ownerIds = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = new User("seller" + i + "-" + UUID.randomUUID() + "@ecotrade.test", "Seller " + i, null, null);
+            user.setId(UUID.randomUUID());
+            userRepository.save(user);
+            ownerIds.add(user.getId());
+
+            List<Product> products = new ArrayList<>();
+            for (int j = 0; j < productsPerUser; j++) {
+                products.add(new Product("Producto " + j, 10.0 + j, "Descripción " + j, "1 año", user.getId()));
+            }
+            productRepository.saveAll(products);
+        }
+        return ownerIds;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.ecotrade.service;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.ProductChangedEvent;
+import com.example.ecotrade.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Las visitas del detalle se acumulan en memoria y cada flush() las suma a product_views sin perder
+ * ninguna, también con lecturas concurrentes durante el vaciado o con la base de datos caída; las de productos
+ * borrados se descartan.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-views;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "ecotrade.views.batch-size=2"
+})
+@ActiveProfiles("test")
+class ProductViewCounterTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductViewCounter viewCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID ownerId;
+
+    @BeforeEach
+    void setUp() {
+        viewCounter.flush();
+        jdbcTemplate.update("DELETE FROM product_views");
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM owner_listing_stats");
+        jdbcTemplate.update("DELETE FROM users");
+        ownerId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, display_name, created_at) VALUES (?, ?, ?, ?)",
+                ownerId, "views-" + ownerId + "@ecotrade.test", "Seller", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    @Test
+    void viewsAreWrittenInBatchesAndAccumulate() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(create("Producto " + i).getId());
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            view(ids.get(i), i + 1);
+        }
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_views", Integer.class));
+        assertEquals(15, viewCounter.flush());
+        assertEquals(3L, views(ids.get(2)));
+
+        view(ids.get(2), 4);
+        assertEquals(4, viewCounter.flush());
+        assertEquals(7L, views(ids.get(2)));
+        assertEquals(5L, views(ids.get(4)));
+
+        // Sin visitas nuevas no se escribe nada
+        assertEquals(0, viewCounter.flush());
+        assertEquals(0, viewCounter.flush());
+        assertEquals(7L, views(ids.get(2)));
+    }
+
+    @Test
+    void viewsOfDeletedProductsAreDiscarded() {
+        Long kept = create("Mesa").getId();
+        Long deleted = create("Silla").getId();
+        view(kept, 1);
+        view(deleted, 2);
+        viewCounter.flush();
+
+        view(deleted, 3);
+        productService.deleteProduct(deleted);
+        viewCounter.flush();
+
+        assertEquals(List.of(kept), jdbcTemplate.queryForList("SELECT product_id FROM product_views", Long.class));
+    }
+
+    @Test
+    void noViewIsLostWhileFlushingConcurrently() throws Exception {
+        Long first = create("Lámpara").getId();
+        Long second = create("Espejo").getId();
+        int threads = 8;
+        int viewsPerThread = 5000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Long productId = t % 2 == 0 ? first : second;
+            readers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < viewsPerThread; i++) {
+                    viewCounter.recordView(productId);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        while (readers.stream().anyMatch(reader -> !reader.isDone())) {
+            viewCounter.flush();
+        }
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+        // El último vaciado recoge también lo que quedó en contadores retirados
+        viewCounter.flush();
+        viewCounter.flush();
+
+        long expected = (long) threads / 2 * viewsPerThread;
+        assertEquals(expected, views(first));
+        assertEquals(expected, views(second));
+    }
+
+    @Test
+    void viewsAndDeletionsAreKeptWhenTheDatabaseIsUnreachable() {
+        Long viewed = create("Sofá").getId();
+        Long deleted = create("Alfombra").getId();
+        AtomicBoolean databaseDown = new AtomicBoolean();
+        // Sin conexión el fallo llega al abrir la transacción, antes de ejecutar ningún SQL
+        PlatformTransactionManager unreliable = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (databaseDown.get()) {
+                    throw new CannotCreateTransactionException("Connection is not available");
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        ProductViewCounter counter = new ProductViewCounter(jdbcTemplate, unreliable, Duration.ofHours(1), 2,
+                new SimpleMeterRegistry());
+        counter.recordView(deleted);
+        counter.flush();
+
+        for (int i = 0; i < 3; i++) {
+            counter.recordView(viewed);
+        }
+        counter.onProductChanged(ProductChangedEvent.deleted(new ProductResponseDTO(
+                deleted, "Alfombra", 10.0, ownerId, LocalDateTime.now(), null, null, "Seller", 0L)));
+        databaseDown.set(true);
+        assertEquals(0, counter.flush());
+
+        databaseDown.set(false);
+        assertEquals(3, counter.flush());
+        assertEquals(List.of(viewed), jdbcTemplate.queryForList("SELECT product_id FROM product_views", Long.class));
+        assertEquals(3L, views(viewed));
+    }
+
+    private Product create(String name) {
+        return productService.createProduct(new Product(name, 10.0, "Descripción", "1 año", ownerId), ownerId);
+    }
+
+    private void view(Long productId, int times) {
+        for (int i = 0; i < times; i++) {
+            productService.getProductById(productId);
+        }
+    }
+
+    private Long views(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT views FROM product_views WHERE product_id = ?", Long.class, productId);
+    }
+}
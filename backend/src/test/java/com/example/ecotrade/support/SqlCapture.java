@@ -0,0 +1,66 @@
+package com.example.ecotrade.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cuenta las sentencias JDBC ejecutadas y las filas leídas a través del DataSource de la aplicación.
+ * SqlCaptureConfiguration envuelve el DataSource y alimenta esta clase; los tests usan capture(...)
+ * para medir un bloque concreto y comprobar los números exactos.
+ * Un batch JDBC cuenta como una sentencia (un viaje a la base de datos).
+ */
+public class SqlCapture {
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger rows = new AtomicInteger();
+    private final List<String> sql = Collections.synchronizedList(new ArrayList<>());
+
+    public Result capture(Action action) throws Exception {
+        reset();
+        action.run();
+        synchronized (sql) {
+            return new Result(statements.get(), rows.get(), List.copyOf(sql));
+        }
+    }
+
+    public void reset() {
+        statements.set(0);
+        rows.set(0);
+        sql.clear();
+    }
+
+    void statement(String text) {
+        statements.incrementAndGet();
+        sql.add(text == null ? "(sql desconocido)" : text);
+    }
+
+    void row() {
+        rows.incrementAndGet();
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public record Result(int statements, int rows, List<String> sql) {
+
+        public Result assertStatements(int expected) {
+            assertEquals(expected, statements, () -> "Sentencias ejecutadas:\n" + String.join("\n", sql));
+            return this;
+        }
+
+        public Result assertRows(int expected) {
+            assertEquals(expected, rows, () -> "Filas leídas; sentencias:\n" + String.join("\n", sql));
+            return this;
+        }
+
+        public Result assertQueries(int expectedStatements, int expectedRows) {
+            return assertStatements(expectedStatements).assertRows(expectedRows);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.ecotrade.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Envuelve el DataSource con proxies JDBC que informan a SqlCapture de cada sentencia ejecutada
+ * y de cada fila leída con ResultSet.next(). Las claves generadas (IDENTITY) no cuentan como filas.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlCaptureConfiguration {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    @Bean
+    public SqlCapture sqlCapture() {
+        return new SqlCapture();
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlCaptureDataSourcePostProcessor(ObjectProvider<SqlCapture> sqlCapture) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                        Object result = invoke(target, method, args);
+                        return result instanceof Connection connection
+                                ? connection(connection, sqlCapture.getObject())
+                                : result;
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static Connection connection(Connection target, SqlCapture capture) {
+        return proxy(Connection.class, target, (connection, method, args) -> {
+            Object result = invoke(connection, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            if (result instanceof CallableStatement statement) {
+                return statement(CallableStatement.class, statement, sql, capture);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return statement(PreparedStatement.class, statement, sql, capture);
+            }
+            if (result instanceof Statement statement) {
+                return statement(Statement.class, statement, null, capture);
+            }
+            return result;
+        });
+    }
+
+    private static <S extends Statement> S statement(Class<S> type, S target, String preparedSql, SqlCapture capture) {
+        return proxy(type, target, (statement, method, args) -> {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                capture.statement(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+            }
+            Object result = invoke(statement, method, args);
+            if (result instanceof ResultSet resultSet && (name.equals("executeQuery") || name.equals("getResultSet"))) {
+                return resultSet(resultSet, capture);
+            }
+            return result;
+        });
+    }
+
+    private static ResultSet resultSet(ResultSet target, SqlCapture capture) {
+        return proxy(ResultSet.class, target, (resultSet, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                capture.row();
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(SqlCaptureConfiguration.class.getClassLoader(), new Class<?>[]{type},
+                invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ecotrade.support;
+
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens firmados con el secreto del perfil test, con el formato de Supabase (sub = id, claim email).
+ */
+public final class TestJwt {
+
+    private TestJwt() {
+    }
+
+    public static String bearer(String secret, UUID userId, String email) {
+        String token = Jwts.builder()
+                .subject(userId.toString())
+                .claim("email", email)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                .compact();
+        return "Bearer " + token;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.ecotrade.trending;
+
+import com.example.ecotrade.dto.ProductResponseDTO;
+import com.example.ecotrade.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sketch de tendencias con el reloj en manos del test: los más frecuentes salen aunque haya muchos más
+ * elementos que contadores, el peso antiguo decae y la memoria no crece con los elementos distintos.
+ * Las visitas de TrendingProducts se acumulan fuera de los sketches y se vuelcan sin perder ninguna.
+ */
+class DecayingTopKTests {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Clock FIXED_CLOCK = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void findsHeavyHittersAmongManyMoreDistinctItems() {
+        DecayingTopK sketch = new DecayingTopK(HOUR, 512, 4, 20, 0);
+        long memory = sketch.memoryBytes();
+        SplittableRandom random = new SplittableRandom(7);
+        long now = 0;
+        // 100 000 elementos con una visita cada uno y cinco con muchas más, todo dentro del mismo minuto
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(1_000 + random.nextInt(1_000_000), 1, now);
+            if (i % 100 == 0) {
+                for (long hot = 1; hot <= 5; hot++) {
+                    sketch.add(hot, hot, now);
+                }
+            }
+            now += i % 1000 == 0 ? 1 : 0;
+        }
+
+        List<DecayingTopK.Entry> top = sketch.top(5, now);
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), top.stream().map(DecayingTopK.Entry::item).toList());
+        // 1000 eventos de peso 5 en el último minuto: apenas han decaído; el sketch solo sobreestima
+        assertTrue(top.get(0).score() > 4_900 && top.get(0).score() < 5_300, "score " + top.get(0).score());
+        assertEquals(memory, sketch.memoryBytes());
+    }
+
+    @Test
+    void oldActivityDecaysBelowRecentActivity() {
+        DecayingTopK sketch = new DecayingTopK(HOUR, 256, 4, 10, 0);
+        for (int i = 0; i < 100; i++) {
+            sketch.add(1, 1, 0);
+        }
+        long twoHoursLater = HOUR.toMillis() * 2;
+        for (int i = 0; i < 20; i++) {
+            sketch.add(2, 1, twoHoursLater);
+        }
+
+        List<DecayingTopK.Entry> top = sketch.top(2, twoHoursLater);
+        assertEquals(2L, top.get(0).item());
+        assertEquals(1L, top.get(1).item());
+        assertEquals(100 * Math.exp(-2), top.get(1).score(), 1e-6);
+        assertEquals(20, sketch.estimate(2, twoHoursLater), 1e-6);
+    }
+
+    @Test
+    void keepsCountingAcrossRescalesAndForgetsRemovedItems() {
+        DecayingTopK sketch = new DecayingTopK(HOUR, 256, 4, 10, 0);
+        long now = 0;
+        // Cien horas: obliga a reescalar los contadores varias veces
+        for (int hour = 0; hour < 100; hour++) {
+            sketch.add(1, 1, now);
+            sketch.add(2, 2, now);
+            now += HOUR.toMillis();
+        }
+        sketch.add(3, 1, now);
+
+        // Una visita por hora durante cien horas, vista una hora después de la última: serie geométrica
+        // e^-1 / (1 - e^-1) ~ 0,58, menos que una sola visita de ahora mismo
+        List<DecayingTopK.Entry> top = sketch.top(10, now);
+        assertEquals(List.of(2L, 3L, 1L), top.stream().map(DecayingTopK.Entry::item).toList());
+        assertEquals(Math.exp(-1) / (1 - Math.exp(-1)), top.get(2).score(), 1e-6);
+
+        sketch.remove(2);
+        assertFalse(sketch.top(10, now).stream().anyMatch(entry -> entry.item() == 2));
+        assertEquals(List.of(3L, 1L), sketch.top(10, now).stream().map(DecayingTopK.Entry::item).toList());
+    }
+
+    @Test
+    void creationsCountMoreThanViewsAndDeletionsDropTheProduct() {
+        TrendingProducts trending = new TrendingProducts(256, 4, 10, 5, HOUR, FIXED_CLOCK);
+        for (int i = 0; i < 3; i++) {
+            trending.recordView(1L);
+        }
+        trending.onProductChanged(ProductChangedEvent.created(product(2L)));
+        trending.recordView(3L);
+
+        assertEquals(List.of(2L, 1L, 3L), trending.trending(TrendingWindow.HOUR, 10));
+        assertEquals(List.of(2L, 1L), trending.trending(TrendingWindow.DAY, 2));
+
+        trending.onProductChanged(ProductChangedEvent.deleted(product(2L)));
+        assertEquals(List.of(1L, 3L), trending.trending(TrendingWindow.DAY, 10));
+    }
+
+    // Las visitas se suman sin bloqueo y se vuelcan aparte: ninguna se pierde aunque el volcado sea concurrente
+    @Test
+    void viewsRecordedWhileDrainingAreAllCounted() throws Exception {
+        TrendingProducts trending = new TrendingProducts(256, 4, 10, 5, HOUR, FIXED_CLOCK);
+        int threads = 8;
+        int viewsPerThread = 5000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long productId = t % 2 == 0 ? 1L : 2L;
+            readers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < viewsPerThread; i++) {
+                    trending.recordView(productId);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        while (readers.stream().anyMatch(reader -> !reader.isDone())) {
+            trending.drain();
+        }
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+        trending.drain();
+        trending.drain();
+
+        // Reloj fijo: sin decaimiento, la estimación es el número de visitas
+        double expected = (double) threads / 2 * viewsPerThread;
+        assertEquals(expected, trending.estimate(TrendingWindow.HOUR, 1L), 1e-6);
+        assertEquals(expected, trending.estimate(TrendingWindow.DAY, 2L), 1e-6);
+    }
+
+    private static ProductResponseDTO product(Long id) {
+        return new ProductResponseDTO(id, "Producto", 10.0, UUID.randomUUID(),
+                LocalDateTime.now(), null, null, "Seller", 0L);
+    }
+}
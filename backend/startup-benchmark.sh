@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Tiempo hasta la primera petición: arranque actual (java -jar, ddl-auto=update) frente al modo fast-start
+# (AOT de Spring, archivo CDS y perfil fast-start). Mide desde que se lanza la JVM hasta la primera respuesta
+# correcta de GET /api/products?limit=1, que ya incluye abrir la conexión con la base de datos.
+#
+# Uso: ./startup-benchmark.sh [ejecuciones]   (5 por defecto)
+# Los dos modos usan src/main/resources/application.properties, es decir, la misma base de datos.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+URL="http://localhost:$PORT/api/products?limit=1"
+WORK=target/startup-benchmark
+FAT_JAR=target/ecotrade-0.0.1-SNAPSHOT.jar
+JAR=$WORK/ecotrade-0.0.1-SNAPSHOT.jar
+# Puertos propios para no chocar con una instancia en marcha; sin tareas programadas durante la medida
+ARGS=(--server.port="$PORT" --management.server.port=$((PORT + 1)) --ecotrade.stats.reconcile.enabled=false)
+FAST_START=(-Dspring.aot.enabled=true -Dspring.profiles.active=fast-start)
+
+./mvnw -q clean package -Pfast-start -DskipTests
+rm -rf "$WORK"
+java -Djarmode=tools -jar "$FAT_JAR" extract --destination "$WORK" > /dev/null
+# Ejecución de entrenamiento del archivo CDS, igual que en el Dockerfile
+java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.context.exit=onRefresh "${FAST_START[@]}" \
+    -jar "$JAR" "${ARGS[@]}" > "$WORK/training.log" 2>&1
+
+measure() {
+    local label=$1
+    shift
+    local total=0 best=0
+    for run in $(seq "$RUNS"); do
+        local log=$WORK/$label-$run.log
+        local start
+        start=$(date +%s%N)
+        "$@" > "$log" 2>&1 &
+        local pid=$!
+        until curl -sf -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$label: la aplicación terminó sin responder, ver $log" >&2
+                exit 1
+            fi
+            sleep 0.02
+        done
+        local ms=$((($(date +%s%N) - start) / 1000000))
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        echo "$label #$run: $ms ms"
+        total=$((total + ms))
+        if [ "$best" -eq 0 ] || [ "$ms" -lt "$best" ]; then
+            best=$ms
+        fi
+    done
+    RESULTS+=("$(printf '%-10s media %6d ms   mejor %6d ms' "$label" $((total / RUNS)) "$best")")
+}
+
+RESULTS=()
+measure normal java -jar "$FAT_JAR" "${ARGS[@]}"
+measure fast-start java -XX:SharedArchiveFile="$WORK/app.jsa" "${FAST_START[@]}" -jar "$JAR" "${ARGS[@]}"
+
+echo
+echo "Tiempo hasta la primera petición ($RUNS ejecuciones):"
+printf '%s\n' "${RESULTS[@]}"
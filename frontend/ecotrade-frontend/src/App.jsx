@@ -1,4 +1,4 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import Header from './components/Header';
 import ProductList from './components/ProductList';
 import LoginModal from './components/LoginModal';
@@ -12,6 +12,11 @@ function App() {
   const [user, setUser] = useState(null);
   const [products, setProducts] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [sort, setSort] = useState('newest');
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  // Ignores responses of requests made for a previous sort or a previous reload
+  const requestId = useRef(0);
   const [showLoginModal, setShowLoginModal] = useState(false);
   const [showRegisterModal, setShowRegisterModal] = useState(false);
   const [showAddProductModal, setShowAddProductModal] = useState(false);
@@ -25,20 +30,46 @@ function App() {
     }
   }, []);
 
-  // Fetch products on mount and when user changes
+  // Fetch the first page on mount and whenever the sort changes
   useEffect(() => {
-    fetchProducts();
-  }, []);
+    fetchProducts(sort);
+  }, [sort]);
 
-  const fetchProducts = async () => {
+  const fetchProducts = async (sortOrder = sort) => {
+    const id = ++requestId.current;
     setLoading(true);
     try {
-      const response = await productAPI.getAllProducts();
-      setProducts(response.data);
+      const response = await productAPI.getAllProducts({ sort: sortOrder });
+      if (id === requestId.current) {
+        setProducts(response.data.items);
+        setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
+      }
     } catch (error) {
       console.error('Error fetching products:', error);
     } finally {
-      setLoading(false);
+      if (id === requestId.current) {
+        setLoading(false);
+      }
+    }
+  };
+
+  // Next page of the same sort: the cursor only makes sense for the order it was issued for
+  const loadMoreProducts = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    const id = requestId.current;
+    setLoadingMore(true);
+    try {
+      const response = await productAPI.getAllProducts({ sort, cursor: nextCursor });
+      if (id === requestId.current) {
+        setProducts((current) => [...current, ...response.data.items]);
+        setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
+      }
+    } catch (error) {
+      console.error('Error fetching more products:', error);
+    } finally {
+      setLoadingMore(false);
     }
   };
 
@@ -93,7 +124,22 @@ function App() {
               </p>
             </div>
 
-            <ProductList products={products} loading={loading} />
+            <div className="catalog-toolbar">
+              <label htmlFor="product-sort">Trier par</label>
+              <select id="product-sort" value={sort} onChange={(e) => setSort(e.target.value)}>
+                <option value="newest">Plus récents</option>
+                <option value="price_asc">Prix croissant</option>
+                <option value="price_desc">Prix décroissant</option>
+              </select>
+            </div>
+
+            <ProductList
+              products={products}
+              loading={loading}
+              hasMore={nextCursor !== null}
+              loadingMore={loadingMore}
+              onLoadMore={loadMoreProducts}
+            />
           </>
         )}
       </main>
@@ -2,7 +2,7 @@ import React from 'react';
 import ProductCard from './ProductCard';
 import './ProductList.css';
 
-const ProductList = ({ products, loading }) => {
+const ProductList = ({ products, loading, hasMore = false, loadingMore = false, onLoadMore }) => {
   if (loading) {
     return <div className="loading">Chargement des produits...</div>;
   }
@@ -17,11 +17,20 @@ const ProductList = ({ products, loading }) => {
   }
 
   return (
-    <div className="product-list">
-      {products.map((product) => (
-        <ProductCard key={product.id} product={product} />
-      ))}
-    </div>
+    <>
+      <div className="product-list">
+        {products.map((product) => (
+          <ProductCard key={product.id} product={product} />
+        ))}
+      </div>
+      {hasMore && (
+        <div className="load-more">
+          <button onClick={onLoadMore} className="btn-primary" disabled={loadingMore}>
+            {loadingMore ? 'Chargement...' : 'Voir plus de produits'}
+          </button>
+        </div>
+      )}
+    </>
   );
 };
 
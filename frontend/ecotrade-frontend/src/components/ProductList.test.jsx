@@ -1,5 +1,5 @@
-import { describe, it, expect } from 'vitest';
-import { render, screen } from '@testing-library/react';
+import { describe, it, expect, vi } from 'vitest';
+import { render, screen, fireEvent } from '@testing-library/react';
 import ProductList from './ProductList';
 
 describe('ProductList Component', () => {
@@ -63,6 +63,28 @@ describe('ProductList Component', () => {
     expect(container.querySelector('.product-list')).toBeInTheDocument();
   });
 
+  it('shows a load more button only when there are more products', () => {
+    const { rerender } = render(<ProductList products={mockProducts} loading={false} />);
+    expect(screen.queryByText('Voir plus de produits')).not.toBeInTheDocument();
+
+    rerender(<ProductList products={mockProducts} loading={false} hasMore={true} onLoadMore={() => {}} />);
+    expect(screen.getByText('Voir plus de produits')).toBeInTheDocument();
+  });
+
+  it('calls onLoadMore when the load more button is clicked', () => {
+    const onLoadMore = vi.fn();
+    render(<ProductList products={mockProducts} loading={false} hasMore={true} onLoadMore={onLoadMore} />);
+
+    fireEvent.click(screen.getByText('Voir plus de produits'));
+    expect(onLoadMore).toHaveBeenCalledTimes(1);
+  });
+
+  it('disables the load more button while the next page is loading', () => {
+    render(<ProductList products={mockProducts} loading={false} hasMore={true} loadingMore={true} onLoadMore={() => {}} />);
+
+    expect(screen.getByText('Chargement...')).toBeDisabled();
+  });
+
   it('prioritizes loading state over empty state', () => {
     render(<ProductList products={[]} loading={true} />);
 
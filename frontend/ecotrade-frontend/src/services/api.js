@@ -43,7 +43,7 @@ export const userAPI = {
 
 // Product API
 export const productAPI = {
-  getAllProducts: () => api.get('/products'),
+  getAllProducts: (params) => api.get('/products', { params }),
   getProductById: (id) => api.get(`/products/${id}`),
   getProductsByUserId: (userId) => api.get(`/products/user/${userId}`),
   createProduct: (userId, productData) => api.post(`/products/user/${userId}`, productData),